@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.kernel.impl.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The core API write and read operations of the mixed load, each as its own
+ * benchmark, on an empty database that gets pre-populated with a known set
+ * of indexed nodes.
+ */
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class CoreApiBenchmarks
+{
+    public static final int NODES = 100000;
+    public static final String INDEX_NAME = "nodes";
+    public static final String INDEX_KEY = "name";
+
+    private enum RelType implements RelationshipType
+    {
+        JMH
+    }
+
+    @State( Scope.Benchmark )
+    public static class Database
+    {
+        GraphDatabaseService graphDb;
+        Index<Node> index;
+        File storeDir;
+
+        @Setup
+        public void setUp() throws IOException
+        {
+            storeDir = File.createTempFile( "perftest", "jmh" );
+            storeDir.delete();
+            graphDb = new GraphDatabaseFactory().newEmbeddedDatabase( storeDir.getAbsolutePath() );
+            index = graphDb.index().forNodes( INDEX_NAME );
+
+            Transaction tx = graphDb.beginTx();
+            try
+            {
+                for ( int i = 0; i < NODES; i++ )
+                {
+                    Node node = graphDb.createNode();
+                    node.setProperty( INDEX_KEY, name( i ) );
+                    index.add( node, INDEX_KEY, name( i ) );
+                }
+                tx.success();
+            }
+            finally
+            {
+                tx.finish();
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException
+        {
+            graphDb.shutdown();
+            FileUtils.deleteRecursively( storeDir );
+        }
+    }
+
+    @State( Scope.Thread )
+    public static class ThreadState
+    {
+        final Random random = new Random( 1337 );
+
+        int nextIndex()
+        {
+            return random.nextInt( NODES );
+        }
+    }
+
+    @Benchmark
+    public long createNode( Database db )
+    {
+        Transaction tx = db.graphDb.beginTx();
+        try
+        {
+            long id = db.graphDb.createNode().getId();
+            tx.success();
+            return id;
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @Benchmark
+    public long createRelationship( Database db, ThreadState state )
+    {
+        Transaction tx = db.graphDb.beginTx();
+        try
+        {
+            Node from = db.graphDb.getNodeById( state.nextIndex() );
+            Node to = db.graphDb.getNodeById( state.nextIndex() );
+            long id = from.createRelationshipTo( to, RelType.JMH ).getId();
+            tx.success();
+            return id;
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @Benchmark
+    public void setProperty( Database db, ThreadState state )
+    {
+        Transaction tx = db.graphDb.beginTx();
+        try
+        {
+            db.graphDb.getNodeById( state.nextIndex() ).setProperty( "value", state.random.nextLong() );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @Benchmark
+    public Node indexLookup( Database db, ThreadState state )
+    {
+        IndexHits<Node> hits = db.index.get( INDEX_KEY, name( state.nextIndex() ) );
+        try
+        {
+            return hits.getSingle();
+        }
+        finally
+        {
+            hits.close();
+        }
+    }
+
+    private static String name( int i )
+    {
+        return "node-" + i;
+    }
+}
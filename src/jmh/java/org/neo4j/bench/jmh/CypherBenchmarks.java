@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.jmh;
+
+import static org.neo4j.bench.PrepopulatedGraphDatabaseFactory.create;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.cypher.CypherQueriesBenchmark;
+import org.neo4j.bench.cases.cypher.QueryCatalog;
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Queries from the default catalog of {@link CypherQueriesBenchmark}, run
+ * against the Cineasts dataset.
+ */
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Benchmark )
+public class CypherBenchmarks
+{
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+    private ExecutionEngine cypher;
+    private QueryCatalog.Query singlePathWithManyStartPoints;
+
+    @Setup
+    public void setUp()
+    {
+        dbWithStore = create( PrepopulatedGraphDatabaseFactory.DataSet.CINEASTS );
+        cypher = new ExecutionEngine( dbWithStore.database );
+        singlePathWithManyStartPoints = QueryCatalog.defaultCatalog().getQuery( "Single path with many start points" );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Benchmark
+    public void singlePathWithManyStartPoints( Blackhole blackhole )
+    {
+        for ( Map<String, Object> row : cypher.execute( singlePathWithManyStartPoints.getQuery(),
+                singlePathWithManyStartPoints.getParameters() ) )
+        {
+            blackhole.consume( row );
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.jmh;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Date;
+
+import org.neo4j.bench.domain.RunResult;
+import org.neo4j.bench.domain.filter.VersionFilter;
+import org.neo4j.bench.regression.PerformanceHistoryRepository;
+import org.neo4j.bench.regression.RegressionDetector;
+import org.neo4j.bench.regression.RegressionReport;
+import org.neo4j.bench.regression.main.Main;
+import org.neo4j.helpers.Args;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks in this package and feeds the results into the same
+ * history and regression check as {@link Main}. Takes the same arguments as
+ * {@link Main}, plus -jmh-include to select a subset of benchmarks.
+ */
+public class JmhMain
+{
+    public static void main( String[] args ) throws Exception
+    {
+        // Arguments
+        Args argz = new Args( args );
+        double threshold = Double.parseDouble( argz.get( "threshold", "0.1" ) );
+        String neoVersion = argz.get( "neo4j-version", "N/A" );
+        String buildUrl = argz.get( "build-url", "Unknown build url" );
+        String include = argz.get( "jmh-include", JmhMain.class.getPackage().getName() + ".*" );
+
+        // Components
+        PerformanceHistoryRepository history = new PerformanceHistoryRepository(argz.get(Main.OPS_PER_SECOND_FILE_ARG, "ops-per-second"));
+        RegressionDetector regressionDetector = new RegressionDetector(threshold, VersionFilter.GA_ONLY );
+
+        // Benchmark
+        Collection<org.openjdk.jmh.results.RunResult> jmhResults = new Runner(
+                new OptionsBuilder().include( include ).build() ).run();
+
+        RunResult results = new RunResult(neoVersion, new Date(), buildUrl);
+        JmhResults.addTo( results, jmhResults );
+
+        // Save results
+        history.save( results );
+        Main.exportHistory( new File( "performance-history.json" ), history );
+
+        // Check for regression
+        RegressionReport regressionReport = regressionDetector.detectRegression( history.getResults(), results );
+
+        if(regressionReport.regressionDetected())
+        {
+            System.out.println(regressionReport);
+            System.exit(1);
+        }
+    }
+}
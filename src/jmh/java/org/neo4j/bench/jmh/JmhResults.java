@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.jmh;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.RunResult;
+import org.neo4j.bench.domain.Unit;
+import org.openjdk.jmh.annotations.Mode;
+
+/**
+ * Converts JMH results into {@link CaseResult}s, one per benchmark class, so
+ * that they can be stored and checked for regression like any other case.
+ */
+public class JmhResults
+{
+    public static final String CASE_NAME_PREFIX = "JMH ";
+
+    public static void addTo( RunResult runResult, Collection<org.openjdk.jmh.results.RunResult> jmhResults )
+    {
+        for ( CaseResult caseResult : toCaseResults( jmhResults ) )
+        {
+            runResult.addResult( caseResult );
+        }
+    }
+
+    public static List<CaseResult> toCaseResults( Collection<org.openjdk.jmh.results.RunResult> jmhResults )
+    {
+        Map<String, List<CaseResult.Metric>> metricsByCase = new LinkedHashMap<String, List<CaseResult.Metric>>();
+        for ( org.openjdk.jmh.results.RunResult jmhResult : jmhResults )
+        {
+            String benchmark = jmhResult.getParams().getBenchmark();
+            String caseName = CASE_NAME_PREFIX + className( benchmark );
+
+            List<CaseResult.Metric> metrics = metricsByCase.get( caseName );
+            if ( metrics == null )
+            {
+                metrics = new ArrayList<CaseResult.Metric>();
+                metricsByCase.put( caseName, metrics );
+            }
+            metrics.add( toMetric( methodName( benchmark ), jmhResult ) );
+        }
+
+        List<CaseResult> results = new ArrayList<CaseResult>();
+        for ( Map.Entry<String, List<CaseResult.Metric>> entry : metricsByCase.entrySet() )
+        {
+            List<CaseResult.Metric> metrics = entry.getValue();
+            results.add( new CaseResult( entry.getKey(), metrics.toArray( new CaseResult.Metric[metrics.size()] ) ) );
+        }
+        return results;
+    }
+
+    private static CaseResult.Metric toMetric( String name, org.openjdk.jmh.results.RunResult jmhResult )
+    {
+        Mode mode = jmhResult.getParams().getMode();
+        return new CaseResult.Metric( name,
+                jmhResult.getPrimaryResult().getScore(),
+                new Unit( jmhResult.getPrimaryResult().getScoreUnit() ),
+                /* track regression = */ true,
+                mode == Mode.Throughput ? BIGGER_IS_BETTER : SMALLER_IS_BETTER );
+    }
+
+    private static String className( String benchmark )
+    {
+        String className = benchmark.substring( 0, benchmark.lastIndexOf( '.' ) );
+        return className.substring( className.lastIndexOf( '.' ) + 1 );
+    }
+
+    private static String methodName( String benchmark )
+    {
+        return benchmark.substring( benchmark.lastIndexOf( '.' ) + 1 );
+    }
+}
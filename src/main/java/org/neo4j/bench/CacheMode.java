@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The state the operating system's page cache should be in when a database
+ * is opened on a store.
+ */
+public enum CacheMode
+{
+    /**
+     * Every store file is read once before the database is opened, so reads
+     * are served from memory from the start.
+     */
+    WARM( "warm" )
+    {
+        @Override
+        boolean prepare( File store ) throws IOException
+        {
+            PageCache.touch( store );
+            return true;
+        }
+    },
+
+    /**
+     * Store files are evicted before the database is opened, like after a
+     * restart of a machine, or a deploy onto a fresh one.
+     */
+    COLD( "cold" )
+    {
+        @Override
+        boolean prepare( File store ) throws IOException
+        {
+            if ( !PageCache.evict( store ) )
+            {
+                System.out.println( "Notice: Unable to evict store files from the page cache, "
+                                    + "the store is not cold." );
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isSupported()
+        {
+            return PageCache.canEvict();
+        }
+    };
+
+    private final String name;
+
+    private CacheMode( String name )
+    {
+        this.name = name;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return false if the page cache can't be put in this state on this
+     *         platform
+     */
+    public boolean isSupported()
+    {
+        return true;
+    }
+
+    /**
+     * @return true if the page cache is now in this state, false if it
+     *         couldn't be put there
+     */
+    abstract boolean prepare( File store ) throws IOException;
+
+    public static CacheMode fromName( String name )
+    {
+        for ( CacheMode mode : values() )
+        {
+            if ( mode.name.equalsIgnoreCase( name.trim() ) )
+            {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException( "Unknown cache mode '" + name + "', expected warm or cold." );
+    }
+}
@@ -30,11 +30,33 @@ public class GraphDatabaseAndUnderlyingStore
 {
     public final GraphDatabaseService database;
     private final File storeLocation;
+    private final boolean pageCacheAsRequested;
 
     public GraphDatabaseAndUnderlyingStore( GraphDatabaseService database, File storeLocation )
+    {
+        this( database, storeLocation, true );
+    }
+
+    /**
+     * @param pageCacheAsRequested false if the page cache couldn't be put in
+     *            the {@link CacheMode} asked for before the database opened
+     */
+    public GraphDatabaseAndUnderlyingStore( GraphDatabaseService database, File storeLocation,
+            boolean pageCacheAsRequested )
     {
         this.database = database;
         this.storeLocation = storeLocation;
+        this.pageCacheAsRequested = pageCacheAsRequested;
+    }
+
+    public File getStoreLocation()
+    {
+        return storeLocation;
+    }
+
+    public boolean isPageCacheAsRequested()
+    {
+        return pageCacheAsRequested;
     }
 
     public void tearDown()
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Puts store files into, or takes them out of, the operating system's page
+ * cache, for benchmarks that need to know what state the cache is in.
+ */
+public class PageCache
+{
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Reads all files in the directory, so they are in the page cache.
+     */
+    public static void touch( File directory ) throws IOException
+    {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for ( File file : filesIn( directory ) )
+        {
+            FileInputStream in = new FileInputStream( file );
+            try
+            {
+                while ( in.read( buffer ) != -1 )
+                {
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * @return true if store files can be evicted from the page cache on this
+     *         platform, which is only Linux
+     */
+    public static boolean canEvict()
+    {
+        return System.getProperty( "os.name" ).toLowerCase().contains( "linux" );
+    }
+
+    /**
+     * Drops all files in the directory from the page cache.
+     *
+     * Where that isn't possible nothing else is tried. Pushing the files out
+     * by writing more fresh data than there is free memory would write that
+     * much for every eviction, many times over in a single run.
+     *
+     * @return true if the files were dropped, false if they couldn't be and
+     *         may well still be cached
+     */
+    public static boolean evict( File directory ) throws IOException
+    {
+        List<File> files = filesIn( directory );
+        if ( !canEvict() || !run( "sync" ) )
+        {
+            return false;
+        }
+        // Dirty pages can't be dropped, so everything is synced first, then
+        // each file is dropped with dd, which advises the kernel it won't be needed
+        for ( File file : files )
+        {
+            if ( !run( "dd", "if=" + file.getAbsolutePath(), "iflag=nocache", "count=0" ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean run( String... command )
+    {
+        try
+        {
+            Process process = new ProcessBuilder( command ).redirectErrorStream( true ).start();
+            process.getOutputStream().close();
+            while ( process.getInputStream().read() != -1 )
+            {
+            }
+            return process.waitFor() == 0;
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static List<File> filesIn( File directory ) throws IOException
+    {
+        List<File> files = new ArrayList<File>();
+        File[] children = directory.listFiles();
+        if ( children == null )
+        {
+            throw new IOException( "Unable to list '" + directory.getAbsolutePath() + "'." );
+        }
+        for ( File child : children )
+        {
+            if ( child.isDirectory() )
+            {
+                files.addAll( filesIn( child ) );
+            }
+            else
+            {
+                files.add( child );
+            }
+        }
+        return files;
+    }
+
+    private PageCache(){}
+}
@@ -19,11 +19,10 @@
  */
 package org.neo4j.bench;
 
-import static org.neo4j.kernel.impl.util.FileUtils.copyRecursively;
-
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.bench.generator.GeneratedDataSet;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
@@ -33,7 +32,9 @@ public class PrepopulatedGraphDatabaseFactory
 {
     public enum DataSet
     {
-        CINEASTS("../databases/cineasts");
+        CINEASTS("../databases/cineasts"),
+        // A new, empty, store
+        EMPTY(null);
 
         private String location;
 
@@ -49,6 +50,85 @@ public class PrepopulatedGraphDatabaseFactory
     }
 
     public static GraphDatabaseAndUnderlyingStore create( DataSet dataSet )
+    {
+        return create( dataSet.getLocation() != null ? new File( dataSet.getLocation() ) : null, null );
+    }
+
+    /**
+     * Creates a database on a copy of the data set, with the page cache in
+     * the given state when the database opens.
+     */
+    public static GraphDatabaseAndUnderlyingStore create( DataSet dataSet, CacheMode cacheMode )
+    {
+        return create( dataSet.getLocation() != null ? new File( dataSet.getLocation() ) : null, cacheMode );
+    }
+
+    /**
+     * Creates a database on a copy of a generated store, generating the store
+     * first if it hasn't been already.
+     */
+    public static GraphDatabaseAndUnderlyingStore create( GeneratedDataSet dataSet )
+    {
+        return create( dataSet.getStore(), null );
+    }
+
+    /**
+     * Creates a database on a copy of a generated store, with the page cache
+     * in the given state when the database opens.
+     */
+    public static GraphDatabaseAndUnderlyingStore create( GeneratedDataSet dataSet, CacheMode cacheMode )
+    {
+        return create( dataSet.getStore(), cacheMode );
+    }
+
+    /**
+     * Creates a database on a copy of a data set given by name, with the page
+     * cache in the given state when the database opens.
+     *
+     * @param dataSet the name of a {@link DataSet}, or of a
+     *            {@link GeneratedDataSet}, such as power-law-1000000-seed1
+     */
+    public static GraphDatabaseAndUnderlyingStore create( String dataSet, CacheMode cacheMode )
+    {
+        for ( DataSet prepopulated : DataSet.values() )
+        {
+            if ( prepopulated.name().equals( dataSet ) )
+            {
+                return create( prepopulated, cacheMode );
+            }
+        }
+        return create( GeneratedDataSet.parse( dataSet ), cacheMode );
+    }
+
+    /**
+     * Opens a copy of a store that isn't open anywhere else, such as one left
+     * behind by a database that has been shut down.
+     */
+    public static GraphDatabaseAndUnderlyingStore restore( File snapshot )
+    {
+        return create( snapshot, null );
+    }
+
+    /**
+     * Shuts the database down and opens it again on the same store, with the
+     * page cache in the given state when it opens.
+     */
+    public static GraphDatabaseAndUnderlyingStore reopen( GraphDatabaseAndUnderlyingStore dbWithStore,
+            CacheMode cacheMode )
+    {
+        dbWithStore.database.shutdown();
+        File location = dbWithStore.getStoreLocation();
+        try
+        {
+            boolean asRequested = cacheMode.prepare( location );
+            return new GraphDatabaseAndUnderlyingStore( open( location ), location, asRequested );
+        } catch(Exception e)
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static GraphDatabaseAndUnderlyingStore create( File source, CacheMode cacheMode )
     {
         try
         {
@@ -56,22 +136,33 @@ public class PrepopulatedGraphDatabaseFactory
             location.delete();
             location.mkdir();
 
-            copyRecursively( new File( dataSet.getLocation() ), location );
+            if ( source != null )
+            {
+                long start = System.currentTimeMillis();
+                StoreSnapshot.Strategy strategy = StoreSnapshot.restore( source, location );
+                System.out.println( "Restored " + source.getPath() + " by " + strategy + " in "
+                                    + ( System.currentTimeMillis() - start ) + "ms" );
+            }
 
             deleteAnyOldUpgradeBackup( location );
 
-            GraphDatabaseService db = new GraphDatabaseFactory()
-                    .newEmbeddedDatabaseBuilder( location.getAbsolutePath() )
-                    .setConfig( GraphDatabaseSettings.allow_store_upgrade, "true" )
-                    .newGraphDatabase();
+            boolean asRequested = cacheMode == null || cacheMode.prepare( location );
 
-            return new GraphDatabaseAndUnderlyingStore( db, location );
+            return new GraphDatabaseAndUnderlyingStore( open( location ), location, asRequested );
         } catch(Exception e)
         {
             throw new RuntimeException( e );
         }
     }
 
+    private static GraphDatabaseService open( File location )
+    {
+        return new GraphDatabaseFactory()
+                .newEmbeddedDatabaseBuilder( location.getAbsolutePath() )
+                .setConfig( GraphDatabaseSettings.allow_store_upgrade, "true" )
+                .newGraphDatabase();
+    }
+
     private static void deleteAnyOldUpgradeBackup( File location ) throws IOException
     {
         File upgradeBackup = new File( location, "upgrade_backup" );
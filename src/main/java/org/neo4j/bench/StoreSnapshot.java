@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.neo4j.bench.util.ClientThreads;
+
+/**
+ * Restores a pristine store into a directory of its own, for a benchmark to
+ * run against and mess up, using the cheapest way the platform offers:
+ *
+ * <ol>
+ * <li>A copy-on-write clone (reflink) of the whole store, where the file
+ * system supports it (btrfs, XFS, APFS). Restoring takes about as long as
+ * listing the files, whatever their size.</li>
+ * <li>Otherwise hard links for files that are never changed once written,
+ * and a parallel copy of the rest.</li>
+ * </ol>
+ *
+ * The only store files that are never changed in place are the segment files
+ * of the Lucene indexes, Lucene writes new files and deletes old ones instead.
+ * Every other store file is written to in place, and linking it would let the
+ * benchmark change the pristine store.
+ */
+public class StoreSnapshot
+{
+    public static enum Strategy
+    {
+        REFLINK,
+        LINK_AND_COPY
+    }
+
+    private static final String LUCENE_SEGMENTS_DIRECTORY = "lucene";
+
+    /**
+     * @param snapshot the pristine store
+     * @param target an empty directory to restore the store into
+     * @return how the store was restored
+     */
+    public static Strategy restore( File snapshot, File target ) throws IOException
+    {
+        target.mkdirs();
+        if ( reflink( snapshot, target ) )
+        {
+            return Strategy.REFLINK;
+        }
+        clear( target );
+        linkAndCopy( snapshot, target );
+        return Strategy.LINK_AND_COPY;
+    }
+
+    /**
+     * @return true if the file system cloned the store, false if it couldn't
+     */
+    private static boolean reflink( File snapshot, File target )
+    {
+        String os = System.getProperty( "os.name" ).toLowerCase();
+        List<String> command = new ArrayList<String>();
+        command.add( "cp" );
+        if ( os.contains( "linux" ) )
+        {
+            command.add( "-R" );
+            command.add( "--reflink=always" );
+        }
+        else if ( os.contains( "mac" ) )
+        {
+            command.add( "-cR" );
+        }
+        else
+        {
+            return false;
+        }
+        // The contents of the snapshot, into the existing target
+        command.add( snapshot.getAbsolutePath() + File.separator + "." );
+        command.add( target.getAbsolutePath() );
+
+        try
+        {
+            Process process = new ProcessBuilder( command ).redirectErrorStream( true ).start();
+            process.getOutputStream().close();
+            // Drain the output so cp can't block on it
+            while ( process.getInputStream().read() != -1 )
+            {
+            }
+            return process.waitFor() == 0;
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void linkAndCopy( File snapshot, File target ) throws IOException
+    {
+        List<File[]> copies = new ArrayList<File[]>();
+        linkOrCollect( snapshot, target, false, copies );
+
+        ExecutorService executor = ClientThreads.newFixedThreadPool( Runtime.getRuntime().availableProcessors() );
+        try
+        {
+            List<Future<Void>> copied = new ArrayList<Future<Void>>();
+            for ( final File[] copy : copies )
+            {
+                copied.add( executor.submit( new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        copyFile( copy[0], copy[1] );
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<Void> future : copied )
+            {
+                future.get();
+            }
+        }
+        catch ( ExecutionException e )
+        {
+            throw new IOException( "Unable to restore '" + snapshot.getAbsolutePath() + "'.", e.getCause() );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted restoring '" + snapshot.getAbsolutePath() + "'." );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the directories of the snapshot in the target, links the files
+     * that can be linked and collects the rest, as source and target pairs,
+     * for copying.
+     */
+    private static void linkOrCollect( File from, File to, boolean immutable, List<File[]> copies ) throws IOException
+    {
+        File[] files = from.listFiles();
+        if ( files == null )
+        {
+            throw new IOException( "Unable to list '" + from.getAbsolutePath() + "'." );
+        }
+        for ( File file : files )
+        {
+            File target = new File( to, file.getName() );
+            if ( file.isDirectory() )
+            {
+                if ( !target.mkdir() )
+                {
+                    throw new IOException( "Unable to create '" + target.getAbsolutePath() + "'." );
+                }
+                linkOrCollect( file, target, immutable || file.getName().equals( LUCENE_SEGMENTS_DIRECTORY ), copies );
+            }
+            else if ( !immutable || !HardLinks.create( target, file ) )
+            {
+                copies.add( new File[] { file, target } );
+            }
+        }
+    }
+
+    static void copyFile( File from, File to ) throws IOException
+    {
+        FileChannel source = new FileInputStream( from ).getChannel();
+        try
+        {
+            FileChannel target = new FileOutputStream( to ).getChannel();
+            try
+            {
+                long size = source.size();
+                long position = 0;
+                while ( position < size )
+                {
+                    position += source.transferTo( position, size - position, target );
+                }
+            }
+            finally
+            {
+                target.close();
+            }
+        }
+        finally
+        {
+            source.close();
+        }
+    }
+
+    private static void clear( File directory ) throws IOException
+    {
+        File[] files = directory.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+        for ( File file : files )
+        {
+            if ( file.isDirectory() )
+            {
+                clear( file );
+            }
+            if ( !file.delete() )
+            {
+                throw new IOException( "Unable to delete '" + file.getAbsolutePath() + "'." );
+            }
+        }
+    }
+
+    /**
+     * Hard links through java.nio.file, when running on Java 7 or later.
+     */
+    private static class HardLinks
+    {
+        private static final Method TO_PATH;
+        private static final Method CREATE_LINK;
+
+        static
+        {
+            Method toPath = null;
+            Method createLink = null;
+            try
+            {
+                Class<?> path = Class.forName( "java.nio.file.Path" );
+                toPath = File.class.getMethod( "toPath" );
+                createLink = Class.forName( "java.nio.file.Files" ).getMethod( "createLink", path, path );
+            }
+            catch ( Exception e )
+            {
+                // Java 6, everything gets copied
+            }
+            TO_PATH = toPath;
+            CREATE_LINK = createLink;
+        }
+
+        /**
+         * @return true if the link was created, false if it has to be a copy,
+         *         such as when the target is on another file system
+         */
+        static boolean create( File link, File existing )
+        {
+            if ( CREATE_LINK == null )
+            {
+                return false;
+            }
+            try
+            {
+                CREATE_LINK.invoke( null, TO_PATH.invoke( link ), TO_PATH.invoke( existing ) );
+                return true;
+            }
+            catch ( Exception e )
+            {
+                return false;
+            }
+        }
+    }
+
+    private StoreSnapshot(){}
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.cypher;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.CYPHER_QUERY;
+import static org.neo4j.bench.domain.Units.RATIO;
+import static org.neo4j.bench.domain.Units.SECOND;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.neo4j.bench.CacheMode;
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.util.ClientThreads;
+import org.neo4j.bench.util.Seeds;
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+
+/**
+ * Runs the queries of a {@link QueryCatalog} for one data set from 1, 2, 4
+ * and so on clients at once, all sharing one {@link ExecutionEngine}, the way
+ * a request thread pool in a server does. Each client picks queries at random
+ * and runs them back to back for a fixed time.
+ *
+ * Reports the queries per second and the latency percentiles, over all
+ * queries, at each concurrency level. Throughput that stops growing with
+ * cores, or latencies that grow with clients while throughput stays put,
+ * point at contention in the query engine or its plan cache.
+ */
+public class ConcurrentCypherBenchCase implements BenchmarkCase
+{
+    private static final String ALL_QUERIES = "All queries";
+
+    private final String dataSet;
+    private final List<QueryCatalog.Query> queries;
+    // Time to run each concurrency level for
+    private final long secondsPerLevel;
+    private final int maxClients;
+    private final long seed;
+
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+    private ExecutionEngine cypher;
+
+    /**
+     * @param maxClients the highest number of clients to run with, 0 for
+     *            twice the number of cores
+     */
+    public ConcurrentCypherBenchCase( String dataSet, List<QueryCatalog.Query> queries, long secondsPerLevel,
+            int maxClients, long seed )
+    {
+        this.dataSet = dataSet;
+        this.queries = queries;
+        this.secondsPerLevel = secondsPerLevel;
+        this.maxClients = maxClients > 0 ? maxClients : Runtime.getRuntime().availableProcessors() * 2;
+        this.seed = seed;
+    }
+
+    @Override
+    public void setUp()
+    {
+        dbWithStore = PrepopulatedGraphDatabaseFactory.create( dataSet, CacheMode.WARM );
+        cypher = new ExecutionEngine( dbWithStore.database );
+    }
+
+    @Override
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        // Plan every query and warm the JIT up, so the first level doesn't pay for it alone
+        for ( QueryCatalog.Query query : queries )
+        {
+            for ( int i = 0; i < query.getWarmup(); i++ )
+            {
+                CypherQueriesBenchmark.exhaust( cypher, query );
+            }
+        }
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        double singleClient = 0;
+        for ( int clients : ClientThreads.doublingUpTo( maxClients ) )
+        {
+            long start = System.nanoTime();
+            Histogram latencies = runLevel( clients );
+            double throughput = latencies.getTotalCount() * 1.0 / ( System.nanoTime() - start )
+                                * TimeUnit.SECONDS.toNanos( 1 );
+            if ( clients == 1 )
+            {
+                singleClient = throughput;
+            }
+            System.out.println( "Throughput with " + clients + " clients: " + throughput + " queries/s, p99 "
+                                + latencies.getValueAtPercentile( 99.0 ) + "us" );
+
+            metrics.add( new CaseResult.Metric( "Throughput with " + clients + " clients", throughput,
+                    CYPHER_QUERY.per( SECOND ), /* track regression = */ true, BIGGER_IS_BETTER ) );
+            metrics.add( new CaseResult.Metric( "Speed-up with " + clients + " clients", throughput / singleClient,
+                    RATIO, BIGGER_IS_BETTER ) );
+            metrics.addAll( OperationLatencies.percentileMetrics( "Latency with " + clients + " clients", latencies ) );
+        }
+
+        String name = CypherQueriesBenchmark.caseName( getClass().getSimpleName(), dataSet );
+        return new CaseResult( name, metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    /**
+     * @return the latencies of all queries the clients ran
+     */
+    private Histogram runLevel( int clients )
+    {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos( secondsPerLevel );
+        ExecutorService executor = ClientThreads.newFixedThreadPool( clients );
+        try
+        {
+            List<Future<OperationLatencies>> running = new ArrayList<Future<OperationLatencies>>();
+            for ( int i = 0; i < clients; i++ )
+            {
+                running.add( executor.submit( new Client( new Random( Seeds.derive( seed, i ) ), end ) ) );
+            }
+            OperationLatencies latencies = new OperationLatencies();
+            for ( Future<OperationLatencies> client : running )
+            {
+                latencies.add( client.get() );
+            }
+            return latencies.getHistograms().get( ALL_QUERIES );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new RuntimeException( "Query client failed.", e.getCause() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs randomly picked queries back to back until the level is over.
+     */
+    private class Client implements Callable<OperationLatencies>
+    {
+        private final Random r;
+        private final long endNanos;
+
+        Client( Random r, long endNanos )
+        {
+            this.r = r;
+            this.endNanos = endNanos;
+        }
+
+        @Override
+        public OperationLatencies call() throws Exception
+        {
+            OperationLatencies latencies = new OperationLatencies();
+            long start;
+            while ( ( start = System.nanoTime() ) < endNanos )
+            {
+                CypherQueriesBenchmark.exhaust( cypher, queries.get( r.nextInt( queries.size() ) ) );
+                latencies.record( ALL_QUERIES, start );
+            }
+            return latencies;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.cypher;
+
+import static java.lang.System.nanoTime;
+import static org.neo4j.bench.PrepopulatedGraphDatabaseFactory.reopen;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.CacheMode;
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.Units;
+import org.neo4j.bench.generator.GeneratedDataSet;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+
+/**
+ * Times the Cypher queries of a {@link QueryCatalog} that run against one data
+ * set, reporting the latencies of each query on its own. Each query is first
+ * run through a number of warmup executions, so that parsing, planning and
+ * JIT compilation do not end up in the steady state numbers. The very first
+ * execution, which has to build the plan, is reported on its own.
+ *
+ * That is how a query runs on a database that has been up for a while. With
+ * {@link CacheMode#COLD} each measured execution instead runs right after the
+ * database has been restarted with its store files evicted from the page
+ * cache, which is how the first queries after a deploy run.
+ */
+public class CypherQueriesBenchmark implements BenchmarkCase
+{
+    // The name this case had while it only ran the Cineasts queries, kept for their history
+    private static final String CINEASTS_CASE_NAME = "CineastsQueriesBenchmark";
+
+    // Every cold execution restarts the database, so there are fewer of them
+    private static final int COLD_EXECUTIONS = 10;
+
+    private final String dataSet;
+    private final List<QueryCatalog.Query> queries;
+    private final CacheMode cacheMode;
+
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+    private ExecutionEngine cypher;
+    private boolean untouched;
+    // Queries that ran with the store still in the page cache when it should have been cold
+    private int queriesNotCold;
+
+    private ArrayList<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+
+    /**
+     * @param dataSet a {@link PrepopulatedGraphDatabaseFactory.DataSet} or the
+     *            name of a {@link GeneratedDataSet}
+     * @param queries the queries to run, all against the data set
+     */
+    public CypherQueriesBenchmark( String dataSet, List<QueryCatalog.Query> queries, CacheMode cacheMode )
+    {
+        this.dataSet = dataSet;
+        this.queries = queries;
+        this.cacheMode = cacheMode;
+    }
+
+    @Override
+    public void setUp()
+    {
+        dbWithStore = PrepopulatedGraphDatabaseFactory.create( dataSet, cacheMode );
+        cypher = new ExecutionEngine( dbWithStore.database );
+        untouched = true;
+    }
+
+    @Override
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        for ( QueryCatalog.Query query : queries )
+        {
+            benchmarkQuery( query );
+        }
+
+        if ( queriesNotCold > 0 )
+        {
+            metrics.add( new CaseResult.Metric( "Queries not reported, page cache not evicted", queriesNotCold, Units.COUNT,
+                    SMALLER_IS_BETTER ) );
+        }
+
+        // Warm is how this case has always run, it keeps its name and history
+        String name = caseName( getClass().getSimpleName(), dataSet );
+        return new CaseResult( cacheMode == CacheMode.WARM ? name : name + "[" + cacheMode.getName() + "]",
+                metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    private void benchmarkQuery( QueryCatalog.Query query )
+    {
+        String name = query.getName();
+        int warmupRuns = query.getWarmup();
+        int timesToRun = query.getRepetitions();
+
+        if ( cacheMode == CacheMode.COLD )
+        {
+            benchmarkColdQuery( name, query, COLD_EXECUTIONS );
+            return;
+        }
+
+        long firstExecution = execute( query );
+        for ( int i = 1; i < warmupRuns; i++ )
+        {
+            execute( query );
+        }
+
+        long[] measured = new long[timesToRun];
+        long startBytes = OperationAllocations.threadAllocatedBytes();
+        for ( int i = 0; i < timesToRun; i++ )
+        {
+            measured[i] = execute( query );
+        }
+        long allocated = OperationAllocations.threadAllocatedBytes() - startBytes;
+
+        addTimeMetrics( name, firstExecution, measured );
+        if ( startBytes >= 0 )
+        {
+            metrics.add( new CaseResult.Metric( "Allocation for: " + name, allocated / (double) timesToRun, Units.BYTE.per( Units.OPERATION ), /* track regression = */ true, SMALLER_IS_BETTER ) );
+        }
+    }
+
+    /**
+     * Restarts the database with its store evicted from the page cache before
+     * each execution. The store isn't restored again in between, the catalog
+     * queries are expected to only read, and a restored store would have to be
+     * upgraded and evicted all over again.
+     */
+    private void benchmarkColdQuery( String name, QueryCatalog.Query query, int timesToRun )
+    {
+        long[] measured = new long[timesToRun];
+        boolean cold = true;
+        for ( int i = 0; i < timesToRun; i++ )
+        {
+            // Only the very first execution of the case gets the database as set up
+            if ( !untouched )
+            {
+                dbWithStore = reopen( dbWithStore, CacheMode.COLD );
+                cypher = new ExecutionEngine( dbWithStore.database );
+            }
+            cold &= dbWithStore.isPageCacheAsRequested();
+            measured[i] = execute( query );
+            untouched = false;
+        }
+
+        // Warm numbers reported as cold would look like a huge improvement
+        if ( !cold )
+        {
+            System.out.println( "Not reporting '" + name + "', the page cache could not be evicted." );
+            queriesNotCold++;
+            return;
+        }
+        addTimeMetrics( name, measured[0], measured );
+    }
+
+    private void addTimeMetrics( String name, long firstExecution, long[] measured )
+    {
+        long total = 0;
+        for ( long execution : measured )
+        {
+            total += execution;
+        }
+        measured = measured.clone();
+        Arrays.sort( measured );
+
+        metrics.add( new CaseResult.Metric( "First execution for: " + name, millis( firstExecution ), Units.MILLISECOND, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "Average for: " + name, millis( total ) / measured.length, Units.MILLISECOND, /* track regression = */ true, SMALLER_IS_BETTER  ) );
+        metrics.add( new CaseResult.Metric( "Min for: " + name, millis( measured[0] ), Units.MILLISECOND, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "Median for: " + name, millis( percentile( measured, 50 ) ), Units.MILLISECOND, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "99th percentile for: " + name, millis( percentile( measured, 99 ) ), Units.MILLISECOND, SMALLER_IS_BETTER ) );
+    }
+
+    /**
+     * @return the time it took to execute the query and exhaust the result, in nanoseconds
+     */
+    private long execute( QueryCatalog.Query query )
+    {
+        long begin = nanoTime();
+        exhaust( cypher, query );
+        return nanoTime() - begin;
+    }
+
+    /**
+     * Runs the query and iterates through its result, which is what makes
+     * cypher run it.
+     *
+     * @throws IllegalStateException if the query returns another number of
+     *             rows than the catalog expects
+     */
+    static void exhaust( ExecutionEngine cypher, QueryCatalog.Query query )
+    {
+        int rows = 0;
+        for ( Map<String, Object> resultRow : cypher.execute( query.getQuery(), query.getParameters() ) )
+        {
+            rows++;
+        }
+
+        if ( query.getExpectedRows() != null && rows != query.getExpectedRows() )
+        {
+            throw new IllegalStateException( "Query '" + query.getName() + "' returned " + rows + " rows, expected "
+                                             + query.getExpectedRows() + "." );
+        }
+    }
+
+    /**
+     * @return the name of a case run against the data set, Cineasts cases
+     *         keep the name they had before there were other data sets
+     */
+    static String caseName( String caseName, String dataSet )
+    {
+        if ( dataSet.equals( PrepopulatedGraphDatabaseFactory.DataSet.CINEASTS.name() ) )
+        {
+            return caseName.equals( CypherQueriesBenchmark.class.getSimpleName() ) ? CINEASTS_CASE_NAME : caseName;
+        }
+        return caseName + "[" + dataSet + "]";
+    }
+
+    private static long percentile( long[] sorted, int percentile )
+    {
+        int index = (int) Math.ceil( sorted.length * percentile / 100.0 ) - 1;
+        return sorted[Math.max( 0, index )];
+    }
+
+    private static double millis( long nanos )
+    {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos( 1 );
+    }
+}
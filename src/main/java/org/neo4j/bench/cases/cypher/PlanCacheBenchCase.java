@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.cypher;
+
+import static org.neo4j.bench.PrepopulatedGraphDatabaseFactory.create;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.CYPHER_QUERY;
+import static org.neo4j.bench.domain.Units.MILLISECOND;
+import static org.neo4j.bench.domain.Units.SECOND;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+/**
+ * Measures what the plan cache of the {@link ExecutionEngine} saves, and what
+ * it costs when it doesn't fit the query texts it sees. The same query, with
+ * a different start node each time, is run against the Cineasts dataset from
+ * a single thread:
+ *
+ * <ul>
+ * <li>with the node id as a parameter, so there is one query text that is
+ * planned once,</li>
+ * <li>with the node id inlined as a literal, each time a text the cache
+ * hasn't seen, so every execution is planned,</li>
+ * <li>with the node id inlined, but picked from a fixed set of ids, with more
+ * and more distinct texts relative to what the cache holds.</li>
+ * </ul>
+ *
+ * The gap between the first two is the price of planning, the sweep shows how
+ * quickly throughput falls once an application sends more distinct texts than
+ * the cache holds.
+ */
+public class PlanCacheBenchCase implements BenchmarkCase
+{
+    static final String PARAMETERIZED_QUERY = "START n=node({id}) MATCH n-[:ACTS_IN]->movie RETURN count(movie)";
+
+    // Set explicitly, so the sweep lines up with the cache whatever the default is
+    static final int QUERY_CACHE_SIZE = 100;
+
+    // Distinct query texts to run with, relative to the size of the plan cache
+    static final double[] TEXTS_PER_CACHE_SIZE = { 0.5, 1, 2, 4 };
+
+    private final long secondsPerRun;
+    private final long seed;
+
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+    private ExecutionEngine cypher;
+    // Ids of all nodes, in random order
+    private List<Long> nodeIds;
+
+    /**
+     * @param secondsPerRun time to run the queries in each way, after a
+     *            warmup of a fifth of that
+     */
+    public PlanCacheBenchCase( long secondsPerRun, long seed )
+    {
+        this.secondsPerRun = secondsPerRun;
+        this.seed = seed;
+    }
+
+    @Override
+    public void setUp()
+    {
+        GraphDatabaseAndUnderlyingStore restored = create( PrepopulatedGraphDatabaseFactory.DataSet.CINEASTS );
+        restored.database.shutdown();
+
+        File location = restored.getStoreLocation();
+        GraphDatabaseService graphDb = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( location.getAbsolutePath() )
+                .setConfig( GraphDatabaseSettings.allow_store_upgrade, "true" )
+                .setConfig( "query_cache_size", Integer.toString( QUERY_CACHE_SIZE ) )
+                .newGraphDatabase();
+        dbWithStore = new GraphDatabaseAndUnderlyingStore( graphDb, location );
+        cypher = new ExecutionEngine( graphDb );
+
+        nodeIds = new ArrayList<Long>();
+        for ( Node node : GlobalGraphOperations.at( graphDb ).getAllNodes() )
+        {
+            nodeIds.add( node.getId() );
+        }
+        Collections.shuffle( nodeIds, new Random( seed ) );
+        if ( nodeIds.size() < QUERY_CACHE_SIZE * TEXTS_PER_CACHE_SIZE[TEXTS_PER_CACHE_SIZE.length - 1] * 10 )
+        {
+            throw new IllegalStateException( "Too few nodes, " + nodeIds.size() + ", to keep inlined texts from repeating." );
+        }
+    }
+
+    @Override
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        final Random r = new Random( seed );
+
+        double parameterized = queriesPerSecond( new QueryTexts()
+        {
+            @Override
+            String next( Map<String, Object> parameters )
+            {
+                parameters.put( "id", nodeIds.get( r.nextInt( nodeIds.size() ) ) );
+                return PARAMETERIZED_QUERY;
+            }
+        } );
+        System.out.println( "Parameterized: " + parameterized + " queries/s" );
+        metrics.add( new CaseResult.Metric( "Parameterized throughput", parameterized, CYPHER_QUERY.per( SECOND ),
+                /* track regression = */ true, BIGGER_IS_BETTER ) );
+
+        // Walks all the nodes before repeating a text, by then the cache has long forgotten it
+        double inlined = queriesPerSecond( new QueryTexts()
+        {
+            private int next;
+
+            @Override
+            String next( Map<String, Object> parameters )
+            {
+                return inline( nodeIds.get( next++ % nodeIds.size() ) );
+            }
+        } );
+        System.out.println( "Inlined literals: " + inlined + " queries/s" );
+        metrics.add( new CaseResult.Metric( "Inlined literals throughput", inlined, CYPHER_QUERY.per( SECOND ),
+                /* track regression = */ true, BIGGER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "Planning time per query", millisPerQuery( inlined ) - millisPerQuery( parameterized ),
+                MILLISECOND, SMALLER_IS_BETTER ) );
+
+        for ( double textsPerCacheSize : TEXTS_PER_CACHE_SIZE )
+        {
+            final int texts = (int) ( QUERY_CACHE_SIZE * textsPerCacheSize );
+            double throughput = queriesPerSecond( new QueryTexts()
+            {
+                @Override
+                String next( Map<String, Object> parameters )
+                {
+                    return inline( nodeIds.get( r.nextInt( texts ) ) );
+                }
+            } );
+            System.out.println( texts + " distinct texts, cache of " + QUERY_CACHE_SIZE + ": " + throughput + " queries/s" );
+            metrics.add( new CaseResult.Metric( "Throughput with " + texts + " distinct texts, cache of " + QUERY_CACHE_SIZE,
+                    throughput, CYPHER_QUERY.per( SECOND ), BIGGER_IS_BETTER ) );
+        }
+
+        return new CaseResult( getClass().getSimpleName(), metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    private abstract static class QueryTexts
+    {
+        /**
+         * @param parameters to put the parameters of the query in, empty when
+         *            handed over
+         * @return the text of the next query to run
+         */
+        abstract String next( Map<String, Object> parameters );
+    }
+
+    /**
+     * Runs queries for a fifth of the time to warm up, JIT and cache alike, and
+     * then for the full time.
+     *
+     * @return queries per second, after warmup
+     */
+    private double queriesPerSecond( QueryTexts texts )
+    {
+        long millis = TimeUnit.SECONDS.toMillis( secondsPerRun );
+        runFor( texts, millis / 5 );
+
+        long start = System.nanoTime();
+        long queries = runFor( texts, millis );
+        return queries * 1.0 / ( System.nanoTime() - start ) * TimeUnit.SECONDS.toNanos( 1 );
+    }
+
+    /**
+     * @return how many queries were run
+     */
+    private long runFor( QueryTexts texts, long millis )
+    {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( millis );
+        long queries = 0;
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        while ( System.nanoTime() < end )
+        {
+            parameters.clear();
+            // Iterate to make cypher run the query
+            for ( Map<String, Object> resultRow : cypher.execute( texts.next( parameters ), parameters ) )
+            {
+                // Ignore
+            }
+            queries++;
+        }
+        return queries;
+    }
+
+    static String inline( long nodeId )
+    {
+        return PARAMETERIZED_QUERY.replace( "{id}", Long.toString( nodeId ) );
+    }
+
+    private static double millisPerQuery( double queriesPerSecond )
+    {
+        return TimeUnit.SECONDS.toMillis( 1 ) / Math.max( queriesPerSecond, Double.MIN_VALUE );
+    }
+}
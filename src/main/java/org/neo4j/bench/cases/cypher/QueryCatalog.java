@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.cypher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Named Cypher queries for {@link CypherQueriesBenchmark} to time, each with
+ * the data set it runs against, its parameters, how many times to run it and,
+ * optionally, how many rows it must return. Catalogs are read from JSON files,
+ * for instance
+ *
+ * <pre>
+ * {
+ *   "queries" : [ {
+ *     "name" : "Co-actors",
+ *     "dataSet" : "CINEASTS",
+ *     "query" : "START actor=node({actor}) MATCH actor-[:ACTS_IN]->()<-[:ACTS_IN]-coActor RETURN count(distinct coActor)",
+ *     "parameters" : { "actor" : 759 },
+ *     "warmup" : 20,
+ *     "repetitions" : 100,
+ *     "expectedRows" : 1
+ *   } ]
+ * }
+ * </pre>
+ *
+ * A data set is either one of {@link org.neo4j.bench.PrepopulatedGraphDatabaseFactory.DataSet},
+ * or the name of a {@link org.neo4j.bench.generator.GeneratedDataSet}, such as
+ * power-law-1000000-seed1. A query whose result has another number of rows
+ * than expected fails the case, its timings would be of some other query.
+ */
+public class QueryCatalog
+{
+    private static final String DEFAULT_RESOURCE = "default-queries.json";
+
+    public static class Query
+    {
+        @JsonProperty private String name;
+        @JsonProperty private String dataSet = "CINEASTS";
+        @JsonProperty private String query;
+        @JsonProperty private Map<String, Object> parameters = new HashMap<String, Object>();
+        // Executions before measuring starts, including the first one
+        @JsonProperty private int warmup = 20;
+        @JsonProperty private int repetitions = 100;
+        // Rows the query must return, null to not check
+        @JsonProperty private Integer expectedRows;
+
+        private Query(){}
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getDataSet()
+        {
+            return dataSet;
+        }
+
+        public String getQuery()
+        {
+            return query;
+        }
+
+        public Map<String, Object> getParameters()
+        {
+            return parameters;
+        }
+
+        public int getWarmup()
+        {
+            return warmup;
+        }
+
+        public int getRepetitions()
+        {
+            return repetitions;
+        }
+
+        public Integer getExpectedRows()
+        {
+            return expectedRows;
+        }
+    }
+
+    @JsonProperty private List<Query> queries = new ArrayList<Query>();
+
+    private QueryCatalog(){}
+
+    public List<Query> getQueries()
+    {
+        return queries;
+    }
+
+    public Query getQuery( String name )
+    {
+        for ( Query query : queries )
+        {
+            if ( query.name.equals( name ) )
+            {
+                return query;
+            }
+        }
+        throw new IllegalArgumentException( "No query named '" + name + "' in the catalog." );
+    }
+
+    /**
+     * @return the data sets the queries run against, in the order they first
+     *         appear
+     */
+    public List<String> dataSets()
+    {
+        Set<String> dataSets = new LinkedHashSet<String>();
+        for ( Query query : queries )
+        {
+            dataSets.add( query.dataSet );
+        }
+        return new ArrayList<String>( dataSets );
+    }
+
+    public List<Query> queriesFor( String dataSet )
+    {
+        List<Query> forDataSet = new ArrayList<Query>();
+        for ( Query query : queries )
+        {
+            if ( query.dataSet.equals( dataSet ) )
+            {
+                forDataSet.add( query );
+            }
+        }
+        return forDataSet;
+    }
+
+    public static QueryCatalog defaultCatalog()
+    {
+        InputStream in = QueryCatalog.class.getResourceAsStream( DEFAULT_RESOURCE );
+        if ( in == null )
+        {
+            throw new IllegalStateException( "Default query catalog '" + DEFAULT_RESOURCE + "' is missing from the classpath." );
+        }
+        try
+        {
+            try
+            {
+                return validate( new ObjectMapper().readValue( in, QueryCatalog.class ), DEFAULT_RESOURCE );
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read default query catalog.", e );
+        }
+    }
+
+    public static QueryCatalog load( File file )
+    {
+        try
+        {
+            return validate( new ObjectMapper().readValue( file, QueryCatalog.class ), file.getAbsolutePath() );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read query catalog from '" + file.getAbsolutePath() + "'.", e );
+        }
+    }
+
+    public static QueryCatalog parse( String json )
+    {
+        try
+        {
+            return validate( new ObjectMapper().readValue( json, QueryCatalog.class ), "<string>" );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to parse query catalog.", e );
+        }
+    }
+
+    private static QueryCatalog validate( QueryCatalog catalog, String source )
+    {
+        if ( catalog.queries.isEmpty() )
+        {
+            throw new IllegalArgumentException( "Query catalog '" + source + "' has no queries." );
+        }
+        Set<String> names = new LinkedHashSet<String>();
+        for ( Query query : catalog.queries )
+        {
+            if ( query.name == null || query.query == null || query.dataSet == null )
+            {
+                throw new IllegalArgumentException( "Every query in '" + source + "' needs a name, a query and a data set." );
+            }
+            if ( !names.add( query.name ) )
+            {
+                throw new IllegalArgumentException( "More than one query named '" + query.name + "' in '" + source + "'." );
+            }
+            if ( query.warmup < 1 || query.repetitions < 1 )
+            {
+                throw new IllegalArgumentException( "Query '" + query.name + "' in '" + source
+                                                    + "' needs at least one warmup execution and one repetition." );
+            }
+        }
+        return catalog;
+    }
+}
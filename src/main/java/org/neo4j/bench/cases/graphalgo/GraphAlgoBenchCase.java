@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.graphalgo;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.COUNT;
+import static org.neo4j.bench.domain.Units.MICROSECOND;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.neo4j.bench.CacheMode;
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.generator.GeneratedDataSet;
+import org.neo4j.bench.generator.GraphGenerator;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.util.RandomNodes;
+import org.neo4j.bench.util.Seeds;
+import org.neo4j.graphalgo.CostEvaluator;
+import org.neo4j.graphalgo.EstimateEvaluator;
+import org.neo4j.graphalgo.GraphAlgoFactory;
+import org.neo4j.graphalgo.PathFinder;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.kernel.Traversal;
+
+/**
+ * Times the path finding algorithms of {@link GraphAlgoFactory}, shortest
+ * path, all simple paths, Dijkstra and A*, between pairs of nodes picked at
+ * random. The pairs come from the run wide seed, so a data set gets the same
+ * pairs in every run, and every algorithm gets the same pairs as the others.
+ *
+ * The data sets have no weights on their relationships, so Dijkstra and A*
+ * weigh each relationship by its id, see {@link #weight(long)}. On a
+ * generated grid A* estimates the remaining cost by the distance along the
+ * grid, everywhere else it has nothing to go on and estimates nothing, which
+ * makes it Dijkstra with the overhead of A*.
+ *
+ * Each algorithm runs through a fixed number of pairs, whatever time they
+ * take, so a slower build is measured over the same pairs as a faster one.
+ * Large generated graphs get fewer pairs, see {@link #pairsFor(String)}, so
+ * they don't make the case run for hours.
+ */
+public class GraphAlgoBenchCase implements BenchmarkCase
+{
+    private static final int WARMUP_PAIRS = 20;
+    static final int PAIRS = 200;
+    // Fewest pairs to run on a large graph, fewer would make for a noisy mean
+    static final int MIN_PAIRS = 25;
+    // Generated graphs with more relationships than this get fewer pairs
+    private static final long RELATIONSHIPS_FOR_ALL_PAIRS = 100000;
+    private static final int SHORTEST_PATH_MAX_DEPTH = 8;
+    private static final int SIMPLE_PATHS_MAX_DEPTH = 3;
+    // Stop collecting simple paths here, there can be very many through a hub
+    static final int MAX_SIMPLE_PATHS = 10000;
+
+    private static final PathExpander<?> EXPANDER = Traversal.pathExpanderForAllTypes( Direction.BOTH );
+
+    static final CostEvaluator<Double> COST = new CostEvaluator<Double>()
+    {
+        @Override
+        public Double getCost( Relationship relationship, Direction direction )
+        {
+            return weight( relationship.getId() );
+        }
+    };
+
+    static final EstimateEvaluator<Double> NO_ESTIMATE = new EstimateEvaluator<Double>()
+    {
+        @Override
+        public Double getCost( Node node, Node goal )
+        {
+            return 0.0;
+        }
+    };
+
+    enum Algorithm
+    {
+        SHORTEST_PATH( "Shortest path", false )
+        {
+            @Override
+            PathFinder<? extends Path> finder( EstimateEvaluator<Double> estimate )
+            {
+                return GraphAlgoFactory.shortestPath( EXPANDER, SHORTEST_PATH_MAX_DEPTH );
+            }
+        },
+        ALL_SIMPLE_PATHS( "All simple paths", true )
+        {
+            @Override
+            PathFinder<? extends Path> finder( EstimateEvaluator<Double> estimate )
+            {
+                return GraphAlgoFactory.allSimplePaths( EXPANDER, SIMPLE_PATHS_MAX_DEPTH );
+            }
+        },
+        DIJKSTRA( "Dijkstra", false )
+        {
+            @Override
+            PathFinder<? extends Path> finder( EstimateEvaluator<Double> estimate )
+            {
+                return GraphAlgoFactory.dijkstra( EXPANDER, COST );
+            }
+        },
+        A_STAR( "A*", false )
+        {
+            @Override
+            PathFinder<? extends Path> finder( EstimateEvaluator<Double> estimate )
+            {
+                return GraphAlgoFactory.aStar( EXPANDER, COST, estimate );
+            }
+        };
+
+        private final String name;
+        private final boolean allPaths;
+
+        private Algorithm( String name, boolean allPaths )
+        {
+            this.name = name;
+            this.allPaths = allPaths;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        abstract PathFinder<? extends Path> finder( EstimateEvaluator<Double> estimate );
+
+        /**
+         * @return how many paths were found between the nodes
+         */
+        long find( PathFinder<? extends Path> finder, Node start, Node end )
+        {
+            if ( !allPaths )
+            {
+                return finder.findSinglePath( start, end ) != null ? 1 : 0;
+            }
+            long paths = 0;
+            for ( Path path : finder.findAllPaths( start, end ) )
+            {
+                if ( ++paths == MAX_SIMPLE_PATHS )
+                {
+                    break;
+                }
+            }
+            return paths;
+        }
+    }
+
+    private final String dataSet;
+    private final int pairs;
+    private final long seed;
+
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+
+    /**
+     * @param dataSet a {@link PrepopulatedGraphDatabaseFactory.DataSet} or the
+     *            name of a {@link GeneratedDataSet}
+     */
+    public GraphAlgoBenchCase( String dataSet, long seed )
+    {
+        this.dataSet = dataSet;
+        this.pairs = pairsFor( dataSet );
+        this.seed = seed;
+    }
+
+    @Override
+    public void setUp()
+    {
+        dbWithStore = PrepopulatedGraphDatabaseFactory.create( dataSet, CacheMode.WARM );
+    }
+
+    @Override
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        // Start and end of pair i are nodes 2i and 2i+1
+        Node[] nodes = RandomNodes.pick( dbWithStore.database, 2 * ( WARMUP_PAIRS + pairs ), new Random( seed ) );
+        EstimateEvaluator<Double> estimate = estimateFor( dataSet );
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        for ( Algorithm algorithm : Algorithm.values() )
+        {
+            benchmarkAlgorithm( algorithm, algorithm.finder( estimate ), nodes, metrics );
+        }
+
+        String name = getClass().getSimpleName();
+        return new CaseResult( dataSet.equals( PrepopulatedGraphDatabaseFactory.DataSet.CINEASTS.name() ) ? name
+                : name + "[" + dataSet + "]", metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    private void benchmarkAlgorithm( Algorithm algorithm, PathFinder<? extends Path> finder, Node[] nodes,
+            List<CaseResult.Metric> metrics )
+    {
+        for ( int pair = 0; pair < WARMUP_PAIRS; pair++ )
+        {
+            algorithm.find( finder, nodes[2 * pair], nodes[2 * pair + 1] );
+        }
+
+        Histogram latencies = OperationLatencies.newHistogram();
+        long totalNanos = 0;
+        int connected = 0;
+        for ( int pair = WARMUP_PAIRS; pair < WARMUP_PAIRS + pairs; pair++ )
+        {
+            long start = System.nanoTime();
+            long paths = algorithm.find( finder, nodes[2 * pair], nodes[2 * pair + 1] );
+            long nanos = System.nanoTime() - start;
+
+            latencies.recordValue( OperationLatencies.clamp( TimeUnit.NANOSECONDS.toMicros( nanos ) ) );
+            totalNanos += nanos;
+            if ( paths > 0 )
+            {
+                connected++;
+            }
+        }
+
+        double mean = TimeUnit.NANOSECONDS.toMicros( totalNanos ) / (double) pairs;
+        System.out.println( algorithm.getName() + ": " + mean + "us on average over " + pairs + " pairs, "
+                            + connected + " connected" );
+        metrics.add( new CaseResult.Metric( algorithm.getName() + " latency mean", mean, MICROSECOND,
+                /* track regression = */ true, SMALLER_IS_BETTER ) );
+        metrics.addAll( OperationLatencies.percentileMetrics( algorithm.getName() + " latency", latencies ) );
+        metrics.add( new CaseResult.Metric( algorithm.getName() + " pairs connected", connected, COUNT, BIGGER_IS_BETTER ) );
+    }
+
+    /**
+     * @return the number of pairs to run each algorithm over, all of
+     *         {@link #PAIRS} for Cineasts and small generated graphs, fewer
+     *         the more relationships a generated graph has, but never fewer
+     *         than {@link #MIN_PAIRS}
+     */
+    static int pairsFor( String dataSet )
+    {
+        if ( !GeneratedDataSet.isGenerated( dataSet ) )
+        {
+            return PAIRS;
+        }
+        long relationships = GeneratedDataSet.parse( dataSet ).getRelationships();
+        if ( relationships <= RELATIONSHIPS_FOR_ALL_PAIRS )
+        {
+            return PAIRS;
+        }
+        return (int) Math.max( MIN_PAIRS, PAIRS * RELATIONSHIPS_FOR_ALL_PAIRS / relationships );
+    }
+
+    /**
+     * The data sets carry no weights, so every relationship gets one from its
+     * id, between 1 and 8, the same in every run.
+     */
+    static double weight( long relationshipId )
+    {
+        return 1 + ( Seeds.derive( 0, relationshipId ) >>> 61 );
+    }
+
+    static EstimateEvaluator<Double> estimateFor( String dataSet )
+    {
+        if ( GeneratedDataSet.isGenerated( dataSet ) )
+        {
+            GeneratedDataSet generated = GeneratedDataSet.parse( dataSet );
+            if ( generated.getGenerator() == GraphGenerator.GRID )
+            {
+                return new GridDistance( GraphGenerator.gridSide( generated.getRelationships() ) );
+            }
+        }
+        return NO_ESTIMATE;
+    }
+
+    /**
+     * The number of steps between two nodes of a generated grid, which no
+     * path between them can cost less than, as no relationship weighs less
+     * than 1.
+     */
+    static class GridDistance implements EstimateEvaluator<Double>
+    {
+        private final long side;
+
+        GridDistance( long side )
+        {
+            this.side = side;
+        }
+
+        @Override
+        public Double getCost( Node node, Node goal )
+        {
+            return (double) steps( node.getId(), goal.getId() );
+        }
+
+        long steps( long nodeId, long goalId )
+        {
+            // Node 0 is the reference node, the grid starts at 1
+            long from = nodeId - 1;
+            long to = goalId - 1;
+            return Math.abs( from / side - to / side ) + Math.abs( from % side - to % side );
+        }
+    }
+}
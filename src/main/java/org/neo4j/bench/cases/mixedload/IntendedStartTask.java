@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import java.util.concurrent.Callable;
+
+import org.neo4j.bench.cases.mixedload.workers.WorkerResult;
+
+/**
+ * Wraps a worker that was scheduled by the open loop load generator. The
+ * response time is measured from when the task was supposed to start, rather
+ * than when a thread got around to running it, so that time spent queued
+ * behind a stalled database is counted the way a client would see it.
+ */
+class IntendedStartTask implements Callable<WorkerResult>
+{
+    private final String operation;
+    private final Callable<WorkerResult> worker;
+    private final long intendedStartNanos;
+
+    IntendedStartTask( String operation, Callable<WorkerResult> worker, long intendedStartNanos )
+    {
+        this.operation = operation;
+        this.worker = worker;
+        this.intendedStartNanos = intendedStartNanos;
+    }
+
+    @Override
+    public WorkerResult call() throws Exception
+    {
+        WorkerResult result = worker.call();
+        result.getLatencies().record( operation + " response time", intendedStartNanos );
+        return result;
+    }
+}
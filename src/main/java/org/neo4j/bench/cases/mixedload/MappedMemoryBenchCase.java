@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.GIGABYTE;
+import static org.neo4j.bench.domain.Units.MEGABYTE;
+import static org.neo4j.bench.domain.Units.OPERATION;
+import static org.neo4j.bench.domain.Units.RATIO;
+import static org.neo4j.bench.domain.Units.SECOND;
+import static org.neo4j.kernel.impl.util.FileUtils.deleteRecursively;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.PageCache;
+import org.neo4j.bench.StoreSnapshot;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.cases.mixedload.workers.WorkerResult;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.generator.GeneratedDataSet;
+import org.neo4j.bench.util.NodeIdPool;
+import org.neo4j.bench.util.Seeds;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSetting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.impl.core.NodeManager;
+
+/**
+ * Runs the phases of a {@link Workload} that have no bulk operations against
+ * the same store with more and more memory mapped, from 5% to 150% of the
+ * size of the store files, and reports the throughput at each size. Mapped
+ * memory is split over the store files in proportion to their size.
+ *
+ * The store is a generated data set, large enough that the small sizes can't
+ * hold what the workload touches. Every size starts from a fresh copy of it,
+ * evicted from the page cache, so what isn't mapped has to come from disk
+ * rather than from a page cache left warm by the size before. Every size
+ * makes the same random choices, so the writes of one run don't change the
+ * store the next one maps. The object cache is turned off, otherwise it
+ * would serve most reads and hide what mapped memory does.
+ *
+ * The curve tells how much memory a store needs mapped per GB to run close to
+ * full speed. The throughput with the least mapped is tracked, it is the size
+ * that goes to disk the most, so it tells whether a build makes going to disk
+ * more expensive.
+ */
+public class MappedMemoryBenchCase implements BenchmarkCase
+{
+    // Mapped memory to run with, relative to the size of the store files
+    static final double[] SHARES_OF_STORE = { 0.05, 0.1, 0.25, 0.5, 0.75, 1.0, 1.5 };
+
+    // Share of the best throughput that counts as close to full speed
+    private static final double CLOSE_TO_FULL_SPEED = 0.9;
+
+    // Store files with memory mapped windows, each configured with <file name>.mapped_memory
+    static final String[] MAPPED_STORE_FILES = {
+            "neostore.nodestore.db",
+            "neostore.relationshipstore.db",
+            "neostore.propertystore.db",
+            "neostore.propertystore.db.strings",
+            "neostore.propertystore.db.arrays" };
+
+    private final Workload workload;
+    private final GeneratedDataSet dataSet;
+    // Time to run with each mapped memory size
+    private final long secondsPerSize;
+    private final int clients;
+    private final long seed;
+
+    // The generated store, never opened, copied for each mapped memory size
+    private File store;
+    private long tasksStarted;
+
+    /**
+     * @param dataSet the name of a {@link GeneratedDataSet} to run against, the
+     *            workload doesn't populate it any further
+     * @param clients number of simulated clients, 0 for one per core plus two
+     */
+    public MappedMemoryBenchCase( Workload workload, String dataSet, long secondsPerSize, int clients, long seed )
+    {
+        this.workload = workload;
+        this.dataSet = GeneratedDataSet.parse( dataSet );
+        this.secondsPerSize = secondsPerSize;
+        this.clients = clients > 0 ? clients : Runtime.getRuntime().availableProcessors() + 2;
+        this.seed = seed;
+    }
+
+    @Override
+    public void setUp()
+    {
+        store = dataSet.getStore();
+    }
+
+    @Override
+    public void tearDown()
+    {
+        // The generated store is kept for the next run
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        long storeBytes = 0;
+        for ( String fileName : MAPPED_STORE_FILES )
+        {
+            storeBytes += new File( store, fileName ).length();
+        }
+        System.out.println( "Store files to map: " + storeBytes / 1024 + "k" );
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        double[] throughput = new double[SHARES_OF_STORE.length];
+        double best = 0;
+        for ( int i = 0; i < SHARES_OF_STORE.length; i++ )
+        {
+            File copy = new File( System.getProperty( "java.io.tmpdir" ), "perftest-mapped-" + dataSet.getName() );
+            boolean evicted = restoreEvicted( store, copy );
+            throughput[i] = runWithMappedMemory( copy, SHARES_OF_STORE[i] );
+            best = Math.max( best, throughput[i] );
+            System.out.println( "Throughput with " + percent( SHARES_OF_STORE[i] ) + "% of the store mapped: "
+                                + throughput[i] + " ops/s" );
+            // Only the least mapped size is tracked, and only if it really had to go to disk
+            metrics.add( new CaseResult.Metric( "Throughput with " + percent( SHARES_OF_STORE[i] ) + "% mapped",
+                    throughput[i], OPERATION.per( SECOND ), i == 0 && evicted, BIGGER_IS_BETTER ) );
+        }
+
+        double needed = SHARES_OF_STORE[SHARES_OF_STORE.length - 1];
+        for ( int i = SHARES_OF_STORE.length - 1; i >= 0 && throughput[i] >= best * CLOSE_TO_FULL_SPEED; i-- )
+        {
+            needed = SHARES_OF_STORE[i];
+        }
+        metrics.add( new CaseResult.Metric( "Mapped memory needed per GB of store", needed * 1024,
+                MEGABYTE.per( GIGABYTE ), SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "Fully mapped vs least mapped throughput",
+                throughput[throughput.length - 1] / Math.max( throughput[0], 1 ), RATIO, SMALLER_IS_BETTER ) );
+
+        String name = getClass().getSimpleName();
+        return new CaseResult( Workload.DEFAULT_NAME.equals( workload.getName() ) ? name : name + "[" + workload.getName() + "]",
+                metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    /**
+     * Copies the store and evicts the copy from the page cache.
+     *
+     * @return false if the copy couldn't be evicted, and the size runs with
+     *         the store in memory
+     */
+    private static boolean restoreEvicted( File store, File copy )
+    {
+        try
+        {
+            // Left behind by a run that didn't finish
+            deleteRecursively( copy );
+            StoreSnapshot.restore( store, copy );
+            if ( !PageCache.evict( copy ) )
+            {
+                System.out.println( "Notice: Unable to evict the store from the page cache, "
+                                    + "unmapped reads will come from memory." );
+                return false;
+            }
+            return true;
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    /**
+     * Runs against the copy of the store, and deletes the copy afterwards.
+     *
+     * @return reads and writes per second
+     */
+    private double runWithMappedMemory( File copy, double shareOfStore )
+    {
+        // Every size makes the same choices
+        Random r = new Random( seed );
+        tasksStarted = 0;
+
+        final GraphDatabaseService graphDb = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( copy.getAbsolutePath() )
+                .setConfig( GraphDatabaseSettings.use_memory_mapped_buffers, GraphDatabaseSetting.TRUE )
+                .setConfig( GraphDatabaseSettings.cache_type, "none" )
+                .setConfig( mappedMemory( copy, shareOfStore ) )
+                .newGraphDatabase();
+
+        final NodeIdPool nodes = NodeIdPool.onHeap();
+        try
+        {
+            // Generated node ids are dense, reading the nodes to find them would warm the node store
+            long highestNodeId = ( (GraphDatabaseAPI) graphDb ).getDependencyResolver()
+                    .resolveDependency( NodeManager.class ).getHighestPossibleIdInUse( Node.class );
+            // Leave the reference node alone, the workers never see it either
+            for ( long id = 1; id <= highestNodeId; id++ )
+            {
+                nodes.add( id );
+            }
+            return SteadyLoad.operationsPerSecond( workload.steadyPhases(), TimeUnit.SECONDS.toMillis( secondsPerSize ),
+                    clients, r, new SteadyLoad.Workers()
+                    {
+                        @Override
+                        public Callable<WorkerResult> newWorker( Workload.Operation operation )
+                        {
+                            return MappedMemoryBenchCase.this.newWorker( graphDb, nodes, operation );
+                        }
+                    } );
+        }
+        finally
+        {
+            graphDb.shutdown();
+            nodes.close();
+            try
+            {
+                deleteRecursively( copy );
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( e );
+            }
+        }
+    }
+
+    /**
+     * @return mapped memory settings giving each store file the given share
+     *         of its size
+     */
+    static Map<String, String> mappedMemory( File store, double shareOfStore )
+    {
+        Map<String, String> config = new HashMap<String, String>();
+        for ( String fileName : MAPPED_STORE_FILES )
+        {
+            long kilobytes = (long) Math.ceil( new File( store, fileName ).length() * shareOfStore / 1024 );
+            config.put( fileName + ".mapped_memory", Math.max( 1, kilobytes ) + "k" );
+        }
+        return config;
+    }
+
+    private Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes,
+            Workload.Operation operation )
+    {
+        return operation.getType().newWorker( graphDb, nodes, operation.getOpsPerTask(), operation.useIndex(),
+                new Random( Seeds.derive( seed, tasksStarted++ ) ), TraceRecorder.NONE );
+    }
+
+    private static int percent( double share )
+    {
+        return (int) Math.round( share * 100 );
+    }
+}
@@ -23,47 +23,65 @@ import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
 import static org.neo4j.bench.domain.Units.CORE_API_READ;
 import static org.neo4j.bench.domain.Units.CORE_API_WRITE_TRANSACTION;
 import static org.neo4j.bench.domain.Units.MILLISECOND;
+import static org.neo4j.bench.domain.Units.SECOND;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Random;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.bench.cases.BenchmarkCase;
-import org.neo4j.bench.cases.mixedload.workers.BulkCreateWorker;
-import org.neo4j.bench.cases.mixedload.workers.BulkReaderWorker;
-import org.neo4j.bench.cases.mixedload.workers.CreateWorker;
-import org.neo4j.bench.cases.mixedload.workers.DeleteWorker;
-import org.neo4j.bench.cases.mixedload.workers.PropertyAddWorker;
-import org.neo4j.bench.cases.mixedload.workers.SampleReadWorker;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.cases.mixedload.trace.TraceReplayBenchCase;
+import org.neo4j.bench.cases.mixedload.workers.WorkerResult;
 import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.TimeSeries;
 import org.neo4j.bench.domain.Unit;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
+import org.neo4j.bench.util.ClientThreads;
+import org.neo4j.bench.util.NodeIdPool;
+import org.neo4j.bench.util.Seeds;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSetting;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 
 /**
- * The main driver for the operation performer threads. Keeps the probabilities
- * with which each thread type is launched and aggregates the results of their
- * runs.
+ * The main driver for the operation performer threads. Runs the phases of a
+ * {@link Workload}, launching workers with the probabilities it gives, and
+ * aggregates the results of their runs.
+ *
+ * Phases with simple operations run either closed loop, where a new task is submitted
+ * whenever there is room for one, or open loop, where single operations are
+ * submitted at a fixed arrival rate regardless of how fast the database keeps
+ * up. In open loop mode response times are measured from the intended start
+ * of each operation, so stalls are not hidden by the load generator slowing
+ * down (coordinated omission).
+ *
+ * All random choices derive from a single seed. With more than one client the
+ * interleaving of operations still varies from run to run, to replay the
+ * exact same operations record a trace.
  */
 public class MixedLoadBenchCase implements BenchmarkCase
 {
     private GraphDatabaseService graphDb;
 
+    private final Workload workload;
+
+    /**
+     * Seed used unless another one is asked for, so consecutive runs, and
+     * runs of different versions, make the same choices.
+     */
+    public static final long DEFAULT_SEED = 1;
+
     private static enum WorkerType
     {
         SIMPLE,
@@ -75,39 +93,77 @@ public class MixedLoadBenchCase implements BenchmarkCase
 
     private static final int PrintEvery = 500;
 
-    // Keeps the list of simple workers futures
-    private final List<Future<int[]>> simpleTasks;
-    // Keeps the list of bulk workers futures
-    private final List<Future<int[]>> bulkTasks;
-    private int readTasksExecuted;
-    private int writeTasksExecuted;
-    // The queue of nodes created/deleted
-    private final Queue<Node> nodes;
+    // Sustained throughput is what all but 5% of the one second windows reached
+    private static final double SUSTAINED_PERCENTILE = 5.0;
+
+    // The ids of nodes created/deleted
+    private final NodeIdPool nodes;
 
     private long totalReads = 0;
     private long totalWrites = 0;
-    // Current max values
-    private double peakReads = 0;
-    private double peakWrites = 0;
-    private double sustainedReads = 0;
-    private double sustainedWrites = 0;
+    // Reads and writes completed in each second of the run, merged from all workers
+    private final ThroughputSeries throughput = new ThroughputSeries();
+    // Start and end of each phase without bulk operations
+    private final List<long[]> steadyPhases = new ArrayList<long[]>();
+    // Latency of each operation type, merged from all workers
+    private final OperationLatencies latencies = new OperationLatencies();
+    private final OperationAllocations allocations = new OperationAllocations();
     // Time to run, in minutes
     private final long timeToRun;
+    // Operations per second to schedule in open loop mode, 0 for closed loop
+    private final double openLoopRate;
+    // Simulated clients in closed loop phases, 0 for one per core plus two
+    private final int clients;
+    // Run each simulated client on a virtual thread
+    private final boolean virtualThreads;
+    // Every random choice derives from this
+    private final long seed;
+    // Workers started so far, each gets a seed of its own
+    private long tasksStarted;
+    // Where to record the operation trace, null to not record one
+    private final File traceFile;
+    private TraceRecorder trace = TraceRecorder.NONE;
     private long startTime;
 
     private long concurrentFinishTime;
 
+    private long finishTime;
+
     public MixedLoadBenchCase( long timeToRun )
     {
-        simpleTasks = new LinkedList<Future<int[]>>();
-        bulkTasks = new LinkedList<Future<int[]>>();
+        this( Workload.defaultWorkload(), timeToRun, 0, false, 0, false, DEFAULT_SEED, null );
+    }
+
+    /**
+     * @param workload the operations to run, and in what proportions
+     * @param timeToRun time to run, in minutes
+     * @param openLoopRate operations per second to schedule during the
+     *            phases with simple operations, or 0 to run closed loop
+     * @param offHeapNodePool keep the ids of the nodes the workers operate on
+     *            off heap, for runs that create very many nodes
+     * @param clients number of simulated clients, each with one task in
+     *            flight at a time, in closed loop phases that do not set
+     *            their own. 0 means one per core plus two.
+     * @param virtualThreads run each client on a virtual thread, which lets
+     *            the client count go into the tens of thousands
+     * @param seed the seed all random choices are derived from
+     * @param traceFile file to record every operation performed to, for
+     *            replay with a {@link TraceReplayBenchCase}, or null
+     */
+    public MixedLoadBenchCase( Workload workload, long timeToRun, double openLoopRate, boolean offHeapNodePool,
+            int clients, boolean virtualThreads, long seed, File traceFile )
+    {
+        this.workload = workload;
         this.timeToRun = timeToRun;
-        nodes = new ConcurrentLinkedQueue<Node>();
-        readTasksExecuted = 0;
-        writeTasksExecuted = 0;
+        this.openLoopRate = openLoopRate;
+        this.clients = clients;
+        this.virtualThreads = virtualThreads;
+        this.seed = seed;
+        this.traceFile = traceFile;
+        nodes = offHeapNodePool ? NodeIdPool.offHeap() : NodeIdPool.onHeap();
     }
 
-    public Queue<Node> getNodeQueue()
+    public NodeIdPool getNodePool()
     {
         return nodes;
     }
@@ -117,7 +173,8 @@ public class MixedLoadBenchCase implements BenchmarkCase
     {
         Map<String, String> props = new HashMap<String, String>();
         props.put( GraphDatabaseSettings.use_memory_mapped_buffers.name(), GraphDatabaseSetting.TRUE );
-        String path = "db";
+        // Workloads do not share a store, they would skew each other
+        String path = Workload.DEFAULT_NAME.equals( workload.getName() ) ? "db" : "db-" + workload.getName();
 //        try
 //        {
 //            FileUtils.deleteRecursively( new File( path ) );
@@ -130,167 +187,139 @@ public class MixedLoadBenchCase implements BenchmarkCase
                 setConfig( GraphDatabaseSettings.use_memory_mapped_buffers, GraphDatabaseSetting.TRUE ).
                 loadPropertiesFromFile( "../config.props" ).
                 newGraphDatabase();
+        if ( traceFile != null )
+        {
+            trace = TraceRecorder.open( traceFile );
+        }
+
+        // Outside of measured stuff, just to populate the db
+        try
+        {
+            for ( Workload.Operation operation : workload.getPopulate() )
+            {
+                newWorker( operation, false ).call();
+            }
+        }
+        catch ( Exception e )
+        {
+            e.printStackTrace();
+        }
     }
 
     @Override
     public void tearDown()
     {
         graphDb.shutdown();
+        nodes.close();
+        trace.close();
     }
 
     @Override
     public CaseResult run( )
     {
-        Random r = new Random();
-        // Outside of measured stuff, just to populate the db
-        try
+        Random r = new Random( seed );
+        startTime = System.currentTimeMillis();
+
+        long phaseStart = startTime;
+        for ( Workload.Phase phase : workload.getPhases() )
         {
-            new BulkCreateWorker( graphDb, nodes, 25000 ).call();
-            new PropertyAddWorker( graphDb, nodes, 2500, true ).call();
+            long phaseEnd = phaseStart + workload.durationMillis( phase, timeToRun * 60 * 1000 );
+            if ( openLoopRate > 0 && !phase.isBulk() )
+            {
+                runOpenLoopPhase( phase, phaseEnd, r );
+            }
+            else
+            {
+                runClosedLoopPhase( phase, phaseEnd, r );
+            }
+            if ( !phase.isBulk() )
+            {
+                concurrentFinishTime = System.currentTimeMillis();
+                steadyPhases.add( new long[] { phaseStart, concurrentFinishTime } );
+            }
+            phaseStart = phaseEnd;
         }
-        catch ( Exception e )
+        finishTime = System.currentTimeMillis();
+        if ( concurrentFinishTime == 0 )
         {
-            e.printStackTrace();
+            concurrentFinishTime = finishTime;
         }
 
-        startTime = System.currentTimeMillis();
-
-        runConcurrentLoad( graphDb, r );
-        concurrentFinishTime = System.currentTimeMillis();
-        runBulkLoad( graphDb, r );
-
         printOutResults( "Final results" );
 
         return createResults();
     }
 
-    private void runConcurrentLoad( GraphDatabaseService graphDb, Random r )
+    private void runClosedLoopPhase( Workload.Phase phase, long phaseEnd, Random r )
     {
         int print = 0;
-        int maxThreads = Runtime.getRuntime().availableProcessors() + 2;
+        int maxClients = phase.getClients() > 0 ? phase.getClients() :
+                         clients > 0 ? clients : Runtime.getRuntime().availableProcessors() + 2;
+        ExecutorService service = virtualThreads ?
+                ClientThreads.newVirtualThreadPerTaskExecutor() :
+                ClientThreads.newFixedThreadPool( maxClients );
 
-        ExecutorService service = Executors.newFixedThreadPool( maxThreads,
-                new ThreadFactory()
-                {
-                    @Override
-                    public Thread newThread( Runnable r )
-                    {
-                        Thread thread = new Thread( r );
-                        thread.setDaemon( true );
-                        return thread;
-                    }
-                } );
-        while ( System.currentTimeMillis() - startTime < ( timeToRun * 60 * 1000 * 2 / 3 ) )
+        TaskScheduler scheduler = new TaskScheduler( service, maxClients,
+                recorderFor( phase.isBulk() ? WorkerType.BULK : WorkerType.SIMPLE ) );
+        try
         {
-            /*
-             * With prob 1/8 add some primitives
-             * With prob 1/8 add some properties
-             * With prob 3/20 delete some primitives
-             * With prob 3/5 read some stuff
-             */
-            double dice = r.nextDouble();
-            if ( dice > 0.75 )
+            while ( System.currentTimeMillis() < phaseEnd )
             {
-                // Half the time start an entity create worker, the rest a
-                // property create worker
-                if ( dice > 0.825 )
-                {
-                    simpleTasks.add( service.submit( new CreateWorker( graphDb,
-                            nodes, 100 ) ) );
-                }
-                else
-                {
-                    simpleTasks.add( service.submit( new PropertyAddWorker(
-                            graphDb, nodes, 100, /*write to index */false ) ) );
-                }
-            }
-            else if ( dice > 0.6 )
-            {
-                simpleTasks.add( service.submit( new DeleteWorker( graphDb,
-                        nodes, 20 ) ) );
-            }
-            else
-            {
-                simpleTasks.add( service.submit( new SampleReadWorker( graphDb,
-                        nodes, 400, /* read from index */true ) ) );
-            }
-            try
-            {
-                /*
-                 * A (naive?) attempt to keep the number of running threads
-                 * bounded
-                 */
-                while ( simpleTasks.size() > maxThreads - 2 )
-                {
-                    gatherUp( simpleTasks, WorkerType.SIMPLE, false );
-                    Thread.sleep( 100 );
-                }
+                // Blocks until a task finishes if all threads are busy
+                scheduler.submit( newWorker( phase.pick( r.nextDouble() ), false ) );
                 if ( print++ % PrintEvery == 0 )
                 {
-                    printOutResults( "Intermediate results for simple" );
+                    printOutResults( "Intermediate results for " + phase.getName() );
                 }
             }
-            catch ( InterruptedException e )
-            {
-                // wut?
-                e.printStackTrace();
-            }
-        }
-        service.shutdown();
-        try
-        {
-            gatherUp( simpleTasks, WorkerType.SIMPLE, true );
+            scheduler.awaitAll( 5, TimeUnit.MINUTES );
         }
         catch ( InterruptedException e )
         {
+            // wut?
             e.printStackTrace();
         }
     }
 
-    private void runBulkLoad( GraphDatabaseService graphDb, Random r )
+    /**
+     * Schedules single operations at {@link #openLoopRate} per second. If the
+     * database falls behind, operations queue up in the pool and their
+     * response time keeps counting from when they should have started.
+     */
+    private void runOpenLoopPhase( Workload.Phase phase, long phaseEnd, Random r )
     {
         int print = 0;
-        ExecutorService service = Executors.newFixedThreadPool( 2 );
-        while ( System.currentTimeMillis() - startTime < ( timeToRun * 60 * 1000 ) )
+        int maxThreads = Runtime.getRuntime().availableProcessors() + 2;
+        long intervalNanos = (long) ( TimeUnit.SECONDS.toNanos( 1 ) / openLoopRate );
+
+        // No bound on tasks in flight, a backlog is exactly what we want to see
+        TaskScheduler scheduler = new TaskScheduler( ClientThreads.newFixedThreadPool( maxThreads ), Integer.MAX_VALUE,
+                recorderFor( WorkerType.SIMPLE ) );
+        long intendedStart = System.nanoTime();
+        try
         {
-            double dice = r.nextDouble();
-            if ( dice > 0.4 )
-            {
-                bulkTasks.add( service.submit( new BulkReaderWorker( graphDb ) ) );
-            }
-            else
+            while ( System.currentTimeMillis() < phaseEnd )
             {
-                bulkTasks.add( service.submit( new BulkCreateWorker( graphDb,
-                        nodes, 7000 ) ) );
-            }
-            try
-            {
-                /*
-                 * A (naive?) attempt to keep the number of running threads
-                 * bounded
-                 */
-                while ( bulkTasks.size() > 2 )
+                scheduler.drainCompleted();
+
+                long now = System.nanoTime();
+                if ( now < intendedStart )
                 {
-                    gatherUp( bulkTasks, WorkerType.BULK, false );
-                    Thread.sleep( 100 );
+                    LockSupport.parkNanos( intendedStart - now );
+                    continue;
                 }
-                if ( print++ % PrintEvery == 0 )
+
+                // Never skip a slot, even if we are behind schedule
+                Callable<WorkerResult> worker = newWorker( phase.pick( r.nextDouble() ), true );
+                scheduler.submit( new IntendedStartTask( operationName( worker ), worker, intendedStart ) );
+                intendedStart += intervalNanos;
+
+                if ( print++ % ( PrintEvery * 100 ) == 0 )
                 {
-                    printOutResults( "Intermediate results for Bulk" );
+                    printOutResults( "Intermediate results for open loop " + phase.getName() );
                 }
             }
-            catch ( InterruptedException e )
-            {
-                // wut?
-                e.printStackTrace();
-            }
-        }
-
-        service.shutdown();
-        System.out.println( "Service shut-down complete" );
-        try
-        {
-            gatherUp( bulkTasks, WorkerType.BULK, true );
+            scheduler.awaitAll( 5, TimeUnit.MINUTES );
         }
         catch ( InterruptedException e )
         {
@@ -299,100 +328,52 @@ public class MixedLoadBenchCase implements BenchmarkCase
     }
 
     /**
-     * @param tasks The list of Futures to gather
-     * @param type The type of tasks - used for statistics generation
-     * @param sweepUp True if this method should wait for unfinished tasks if
-     *            false, not done tasks are skipped
-     * @throws InterruptedException
+     * @param singleOp perform a single operation rather than the number of
+     *            operations per task the workload asks for
      */
-    private void gatherUp( List<Future<int[]>> tasks, WorkerType type,
-            boolean sweepUp ) throws InterruptedException
+    private Callable<WorkerResult> newWorker( Workload.Operation operation, boolean singleOp )
     {
-        Iterator<Future<int[]>> it = tasks.iterator();
-        while ( it.hasNext() )
+        return operation.getType().newWorker( graphDb, nodes,
+                singleOp ? 1 : operation.getOpsPerTask(), operation.useIndex(),
+                new Random( Seeds.derive( seed, tasksStarted++ ) ), trace );
+    }
+
+    private static String operationName( Callable<WorkerResult> worker )
+    {
+        return worker.getClass().getSimpleName().replace( "Worker", "" );
+    }
+
+    private TaskScheduler.Listener recorderFor( final WorkerType type )
+    {
+        return new TaskScheduler.Listener()
         {
-            Future<int[]> task = it.next();
-            // Short circuit - if sweepUp is true, we gather everything up, else
-            // only finished
-            if ( sweepUp || task.isDone() )
+            @Override
+            public void taskFinished( WorkerResult result )
             {
-                try
-                {
-                    int[] taskRes = task.get( 5, TimeUnit.SECONDS );
-                    totalReads += taskRes[0];
-                    totalWrites += taskRes[1];
-                    // These are the means for this run
-                    double thisReads = taskRes[0]
-                                       / ( taskRes[2] == 0 ? 1 : taskRes[2] );
-                    double thisWrites = taskRes[1]
-                                        / ( taskRes[2] == 0 ? 1 : taskRes[2] );
-                    if ( taskRes[0] > 0 )
-                    {
-                        readTasksExecuted++;
-                    }
-                    if ( taskRes[1] > 0 )
-                    {
-                        writeTasksExecuted++;
-                    }
-                    switch ( type )
-                    {
-                    case SIMPLE:
-                        if ( taskRes[0] > 0 )
-                        {
-                            totalReads += taskRes[0];
-                        }
-                        if ( taskRes[1] > 0 )
-                        {
-                            totalWrites += taskRes[1];
-                        }
-                        break;
-                    case BULK:
-                        // Sustained operations must be at least as long as
-                        // 9/10ths the average runtime
-                        if ( taskRes[2] > ( System.currentTimeMillis() - startTime )
-                                          * 0.9 / readTasksExecuted )
-                        {
-                            if ( thisReads > sustainedReads )
-                            {
-                                sustainedReads = thisReads;
-                            }
-                            if ( thisWrites > sustainedWrites )
-                            {
-                                sustainedWrites = thisWrites;
-                            }
-                        }
-                        break;
-                    }
-                    // The test run for more than 10% of the average time, long
-                    // enough for getting a peak value
-                    if ( thisReads > peakReads
-                         && taskRes[2] > ( ( System.currentTimeMillis() - startTime ) )
-                                         * 0.1 / readTasksExecuted )
-                    {
-                        peakReads = thisReads;
-                    }
-                    if ( thisWrites > peakWrites
-                         && taskRes[2] > ( ( System.currentTimeMillis() - startTime ) )
-                                         * 0.1 / writeTasksExecuted )
-                    {
-                        peakWrites = thisWrites;
-                    }
-                }
-                catch ( ExecutionException e )
-                {
-                    e.printStackTrace();
-                }
-                catch ( TimeoutException e )
-                {
-                    System.err.println( "Task failed to terminate: " + task );
-                    e.printStackTrace();
-                }
-                finally
-                {
-                    it.remove();
-                }
-
+                record( result, type );
             }
+        };
+    }
+
+    /**
+     * Adds the result of a finished task to the totals, as soon as it finishes.
+     *
+     * @param taskRes The result of the task
+     * @param type The type of task - used for statistics generation
+     */
+    private void record( WorkerResult taskRes, WorkerType type )
+    {
+        latencies.add( taskRes.getLatencies() );
+        allocations.add( taskRes.getAllocations() );
+        throughput.add( taskRes.getThroughput() );
+        totalReads += taskRes.getReads();
+        totalWrites += taskRes.getWrites();
+        // Simple tasks have always been counted twice, kept that way so the
+        // tracked averages stay comparable with the history
+        if ( type == WorkerType.SIMPLE )
+        {
+            totalReads += taskRes.getReads();
+            totalWrites += taskRes.getWrites();
         }
     }
 
@@ -401,14 +382,66 @@ public class MixedLoadBenchCase implements BenchmarkCase
         double avgReads  = totalReads  * 1.0 / ( concurrentFinishTime - startTime );
         double avgWrites = totalWrites * 1.0 / ( concurrentFinishTime - startTime );
 
-        return new CaseResult(getClass().getSimpleName(),
-                new CaseResult.Metric("Average reads", avgReads,          READS_PER_MS, /* track regression = */ true, BIGGER_IS_BETTER ),
-                new CaseResult.Metric("Sustained reads", sustainedReads,  READS_PER_MS, BIGGER_IS_BETTER  ),
-                new CaseResult.Metric("Peak reads", peakReads,            READS_PER_MS, BIGGER_IS_BETTER  ),
+        long[] reads = throughput.getReads( startTime, finishTime );
+        long[] writes = throughput.getWrites( startTime, finishTime );
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        metrics.add( new CaseResult.Metric("Average reads", avgReads,          READS_PER_MS, /* track regression = */ true, BIGGER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric("Sustained reads", perMilli( sustained( true ) ), READS_PER_MS, BIGGER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric("Peak reads", perMilli( ThroughputSeries.max( reads ) ), READS_PER_MS, BIGGER_IS_BETTER ) );
+
+        metrics.add( new CaseResult.Metric("Average writes", avgWrites,        TX_PER_MS, /* track regression = */ true, BIGGER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric("Sustained writes", perMilli( sustained( false ) ), TX_PER_MS, BIGGER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric("Peak writes", perMilli( ThroughputSeries.max( writes ) ), TX_PER_MS, BIGGER_IS_BETTER ) );
+
+        // Tail latency per operation type
+        metrics.addAll( latencies.toMetrics() );
+
+        // Garbage per operation type
+        metrics.addAll( allocations.toMetrics() );
+
+        CaseResult result = new CaseResult( caseName(), metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+        result.addTimeSeries( "Reads", new TimeSeries( startTime, ThroughputSeries.WINDOW_MILLIS,
+                CORE_API_READ.per( SECOND ), ThroughputSeries.asList( reads ) ) );
+        result.addTimeSeries( "Writes", new TimeSeries( startTime, ThroughputSeries.WINDOW_MILLIS,
+                CORE_API_WRITE_TRANSACTION.per( SECOND ), ThroughputSeries.asList( writes ) ) );
+        return result;
+    }
 
-                new CaseResult.Metric("Average writes", avgWrites,        TX_PER_MS, /* track regression = */ true, BIGGER_IS_BETTER ),
-                new CaseResult.Metric("Sustained writes", sustainedReads, TX_PER_MS, BIGGER_IS_BETTER ),
-                new CaseResult.Metric("Peak writes", peakReads,           TX_PER_MS, BIGGER_IS_BETTER ));
+    /**
+     * @return the rate held in all but the worst few one second windows of the
+     *         steady phases, those without bulk operations
+     */
+    private long sustained( boolean reads )
+    {
+        List<Long> windows = new ArrayList<Long>();
+        for ( long[] phase : steadyPhases )
+        {
+            long[] phaseWindows = reads ? throughput.getReads( phase[0], phase[1] ) :
+                                          throughput.getWrites( phase[0], phase[1] );
+            for ( long window : phaseWindows )
+            {
+                windows.add( window );
+            }
+        }
+        long[] all = new long[windows.size()];
+        for ( int i = 0; i < all.length; i++ )
+        {
+            all[i] = windows.get( i );
+        }
+        return ThroughputSeries.percentile( all, SUSTAINED_PERCENTILE );
+    }
+
+    private static double perMilli( long perWindow )
+    {
+        return perWindow * 1.0 / ThroughputSeries.WINDOW_MILLIS;
+    }
+
+    private String caseName()
+    {
+        String name = getClass().getSimpleName();
+        // The default workload keeps the name its history is stored under
+        return Workload.DEFAULT_NAME.equals( workload.getName() ) ? name : name + "[" + workload.getName() + "]";
     }
 
     private void printOutResults( String header )
@@ -424,10 +457,11 @@ public class MixedLoadBenchCase implements BenchmarkCase
                             * 1.0
                             / ( ( concurrentFinishTime == 0 ? System.currentTimeMillis()
                                     : concurrentFinishTime ) - startTime ) );
-        System.out.println( "Peak reads per ms: " + peakReads );
-        System.out.println( "Peak writes per ms: " + peakWrites );
-        System.out.println( "Peak Sustained reads per ms: " + sustainedReads );
-        System.out.println( "Peak Sustained writes per ms: " + sustainedWrites );
+        long now = finishTime == 0 ? System.currentTimeMillis() : finishTime;
+        System.out.println( "Peak reads per ms: " + perMilli( ThroughputSeries.max( throughput.getReads( startTime, now ) ) ) );
+        System.out.println( "Peak writes per ms: " + perMilli( ThroughputSeries.max( throughput.getWrites( startTime, now ) ) ) );
+        System.out.println( "Sustained reads per ms: " + perMilli( sustained( true ) ) );
+        System.out.println( "Sustained writes per ms: " + perMilli( sustained( false ) ) );
         System.out.println();
     }
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.cases.mixedload.workers.BulkCreateWorker;
+import org.neo4j.bench.cases.mixedload.workers.BulkReaderWorker;
+import org.neo4j.bench.cases.mixedload.workers.CreateWorker;
+import org.neo4j.bench.cases.mixedload.workers.DeleteWorker;
+import org.neo4j.bench.cases.mixedload.workers.PropertyAddWorker;
+import org.neo4j.bench.cases.mixedload.workers.SampleReadWorker;
+import org.neo4j.bench.cases.mixedload.workers.WorkerResult;
+import org.neo4j.bench.util.NodeIdPool;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * The kinds of work a {@link Workload} can mix. Each maps to one of the
+ * workers, bulk types are the long running whole graph operations.
+ */
+public enum OperationType
+{
+    CREATE( false )
+    {
+        @Override
+        Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes, int ops, boolean index,
+                Random r, TraceRecorder trace )
+        {
+            return new CreateWorker( graphDb, nodes, ops, r, trace );
+        }
+    },
+    PROPERTY_ADD( false )
+    {
+        @Override
+        Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes, int ops, boolean index,
+                Random r, TraceRecorder trace )
+        {
+            return new PropertyAddWorker( graphDb, nodes, ops, index, r, trace );
+        }
+    },
+    DELETE( false )
+    {
+        @Override
+        Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes, int ops, boolean index,
+                Random r, TraceRecorder trace )
+        {
+            return new DeleteWorker( graphDb, nodes, ops, r, trace );
+        }
+    },
+    SAMPLE_READ( false )
+    {
+        @Override
+        Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes, int ops, boolean index,
+                Random r, TraceRecorder trace )
+        {
+            return new SampleReadWorker( graphDb, nodes, ops, index, r, trace );
+        }
+    },
+    BULK_CREATE( true )
+    {
+        @Override
+        Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes, int ops, boolean index,
+                Random r, TraceRecorder trace )
+        {
+            return new BulkCreateWorker( graphDb, nodes, ops, r, trace );
+        }
+    },
+    BULK_READ( true )
+    {
+        @Override
+        Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes, int ops, boolean index,
+                Random r, TraceRecorder trace )
+        {
+            // Always scans the whole graph
+            return new BulkReaderWorker( graphDb, trace );
+        }
+    };
+
+    private final boolean bulk;
+
+    private OperationType( boolean bulk )
+    {
+        this.bulk = bulk;
+    }
+
+    public boolean isBulk()
+    {
+        return bulk;
+    }
+
+    /**
+     * @param ops number of operations the worker performs
+     * @param index whether the worker writes to or reads from the index
+     * @param r the random the worker makes all its choices with
+     * @param trace where the worker records the operations it performs
+     */
+    abstract Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes, int ops, boolean index,
+            Random r, TraceRecorder trace );
+}
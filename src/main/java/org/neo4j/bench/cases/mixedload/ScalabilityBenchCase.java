@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import static org.neo4j.bench.PrepopulatedGraphDatabaseFactory.create;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.OPERATION;
+import static org.neo4j.bench.domain.Units.RATIO;
+import static org.neo4j.bench.domain.Units.SECOND;
+import static org.neo4j.kernel.impl.util.FileUtils.deleteRecursively;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.cases.mixedload.workers.WorkerResult;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.metrics.UniversalScalabilityLaw;
+import org.neo4j.bench.util.ClientThreads;
+import org.neo4j.bench.util.NodeIdPool;
+import org.neo4j.bench.util.Seeds;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * Runs the phases of a {@link Workload} that have no bulk operations, closed
+ * loop, at 1, 2, 4 and so on up to twice as many clients as there are cores,
+ * and fits the {@link UniversalScalabilityLaw} to the throughput at each
+ * level.
+ *
+ * The workload populates the store once, in setUp, and every level starts
+ * from a fresh copy of the populated store, so the later levels don't run
+ * against a store the earlier ones have grown.
+ *
+ * The throughput at 1, 2, 4 and so on clients is tracked, those levels are
+ * the same on every machine. The highest level, when it is not one of them,
+ * and the fitted coefficients are only reported: a short sweep fits
+ * contention and coherency close to zero, where a relative threshold flags
+ * every run.
+ */
+public class ScalabilityBenchCase implements BenchmarkCase
+{
+    private final Workload workload;
+    // Time to run each concurrency level for
+    private final long secondsPerLevel;
+    private final int maxClients;
+    private final long seed;
+
+    // The populated store, shut down, copied for each level
+    private File populatedStore;
+    // The nodes the workload populated the store with
+    private long[] populatedNodes;
+    private long tasksStarted;
+
+    /**
+     * @param maxClients the highest number of clients to run with, 0 for
+     *            twice the number of cores
+     */
+    public ScalabilityBenchCase( Workload workload, long secondsPerLevel, int maxClients, long seed )
+    {
+        this.workload = workload;
+        this.secondsPerLevel = secondsPerLevel;
+        this.maxClients = maxClients > 0 ? maxClients : Runtime.getRuntime().availableProcessors() * 2;
+        this.seed = seed;
+    }
+
+    @Override
+    public void setUp()
+    {
+        GraphDatabaseAndUnderlyingStore dbWithStore = create( PrepopulatedGraphDatabaseFactory.DataSet.EMPTY );
+        NodeIdPool nodes = NodeIdPool.onHeap();
+        try
+        {
+            for ( Workload.Operation operation : workload.getPopulate() )
+            {
+                newWorker( dbWithStore.database, nodes, operation ).call();
+            }
+        }
+        catch ( Exception e )
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            dbWithStore.database.shutdown();
+        }
+        populatedStore = dbWithStore.getStoreLocation();
+
+        Random r = new Random( seed );
+        populatedNodes = new long[nodes.size()];
+        for ( int i = 0; i < populatedNodes.length; i++ )
+        {
+            populatedNodes[i] = nodes.removeRandomId( r );
+        }
+        nodes.close();
+    }
+
+    @Override
+    public void tearDown()
+    {
+        try
+        {
+            deleteRecursively( populatedStore );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        List<Workload.Phase> phases = workload.steadyPhases();
+
+        List<Integer> levels = ClientThreads.doublingUpTo( maxClients );
+        int[] concurrency = new int[levels.size()];
+        double[] throughput = new double[levels.size()];
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        for ( int i = 0; i < levels.size(); i++ )
+        {
+            concurrency[i] = levels.get( i );
+            throughput[i] = runLevel( phases, concurrency[i] );
+            System.out.println( "Throughput with " + concurrency[i] + " clients: " + throughput[i] + " ops/s" );
+            boolean sameOnEveryMachine = Integer.bitCount( concurrency[i] ) == 1;
+            metrics.add( new CaseResult.Metric( "Throughput with " + concurrency[i] + " clients", throughput[i],
+                    OPERATION.per( SECOND ), sameOnEveryMachine, BIGGER_IS_BETTER ) );
+        }
+
+        UniversalScalabilityLaw usl = UniversalScalabilityLaw.fit( concurrency, throughput );
+        System.out.println( "Fitted " + usl + ", throughput peaks at " + usl.peakConcurrency() + " clients" );
+        metrics.add( new CaseResult.Metric( "USL contention (sigma)", usl.getSigma(), RATIO, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "USL coherency (kappa)", usl.getKappa(), RATIO, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "USL single client throughput (lambda)", usl.getLambda(),
+                OPERATION.per( SECOND ), BIGGER_IS_BETTER ) );
+
+        String name = getClass().getSimpleName();
+        return new CaseResult( Workload.DEFAULT_NAME.equals( workload.getName() ) ? name : name + "[" + workload.getName() + "]",
+                metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    /**
+     * Runs against a fresh copy of the populated store, and deletes the copy
+     * afterwards.
+     *
+     * @return reads and writes per second
+     */
+    private double runLevel( List<Workload.Phase> phases, int clients )
+    {
+        // Every level starts out making the same choices
+        Random r = new Random( seed );
+        tasksStarted = 0;
+
+        final GraphDatabaseAndUnderlyingStore dbWithStore = PrepopulatedGraphDatabaseFactory.restore( populatedStore );
+        final NodeIdPool nodes = NodeIdPool.onHeap();
+        try
+        {
+            for ( long id : populatedNodes )
+            {
+                nodes.add( id );
+            }
+            return SteadyLoad.operationsPerSecond( phases, TimeUnit.SECONDS.toMillis( secondsPerLevel ), clients, r,
+                    new SteadyLoad.Workers()
+                    {
+                        @Override
+                        public Callable<WorkerResult> newWorker( Workload.Operation operation )
+                        {
+                            return ScalabilityBenchCase.this.newWorker( dbWithStore.database, nodes, operation );
+                        }
+                    } );
+        }
+        finally
+        {
+            dbWithStore.tearDown();
+            nodes.close();
+        }
+    }
+
+    private Callable<WorkerResult> newWorker( GraphDatabaseService graphDb, NodeIdPool nodes,
+            Workload.Operation operation )
+    {
+        return operation.getType().newWorker( graphDb, nodes, operation.getOpsPerTask(), operation.useIndex(),
+                new Random( Seeds.derive( seed, tasksStarted++ ) ), TraceRecorder.NONE );
+    }
+}
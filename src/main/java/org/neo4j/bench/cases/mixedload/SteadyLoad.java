@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.cases.mixedload.workers.WorkerResult;
+import org.neo4j.bench.util.ClientThreads;
+
+/**
+ * Runs phases of a {@link Workload} closed loop, with a fixed number of
+ * clients for a fixed time, and tells how many operations got done. For
+ * cases that run the same load over and over under different conditions
+ * and compare the throughput.
+ */
+class SteadyLoad
+{
+    interface Workers
+    {
+        Callable<WorkerResult> newWorker( Workload.Operation operation );
+    }
+
+    /**
+     * @return reads and writes per second
+     */
+    static double operationsPerSecond( List<Workload.Phase> phases, long millis, int clients, Random r,
+            Workers workers )
+    {
+        final long[] operations = new long[1];
+        TaskScheduler scheduler = new TaskScheduler( ClientThreads.newFixedThreadPool( clients ), clients,
+                new TaskScheduler.Listener()
+                {
+                    @Override
+                    public void taskFinished( WorkerResult result )
+                    {
+                        operations[0] += result.getReads() + result.getWrites();
+                    }
+                } );
+
+        long start = System.nanoTime();
+        try
+        {
+            long phaseEnd = System.currentTimeMillis();
+            for ( Workload.Phase phase : phases )
+            {
+                phaseEnd += Workload.durationMillis( phase, phases, millis );
+                while ( System.currentTimeMillis() < phaseEnd )
+                {
+                    scheduler.submit( workers.newWorker( phase.pick( r.nextDouble() ) ) );
+                }
+            }
+            scheduler.awaitAll( 5, TimeUnit.MINUTES );
+        }
+        catch ( InterruptedException e )
+        {
+            e.printStackTrace();
+        }
+        return operations[0] * 1.0 / ( System.nanoTime() - start ) * TimeUnit.SECONDS.toNanos( 1 );
+    }
+
+    private SteadyLoad(){}
+}
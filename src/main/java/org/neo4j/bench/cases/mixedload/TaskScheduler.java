@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.cases.mixedload.workers.WorkerResult;
+
+/**
+ * Keeps at most a fixed number of worker tasks in flight, and hands each
+ * result to a {@link Listener} as soon as its task has finished. Submitting a
+ * task when all permits are taken blocks until some task completes, so a
+ * closed loop driver that keeps submitting will keep exactly that many tasks
+ * in flight, without polling.
+ *
+ * Not thread safe, it is meant to be driven from a single thread, which is
+ * also the thread the listener is called on.
+ */
+class TaskScheduler
+{
+    interface Listener
+    {
+        void taskFinished( WorkerResult result );
+    }
+
+    private final ExecutorService executor;
+    private final CompletionService<WorkerResult> completions;
+    private final int permits;
+    private final Listener listener;
+    private int inFlight;
+
+    TaskScheduler( ExecutorService executor, int permits, Listener listener )
+    {
+        this.executor = executor;
+        this.completions = new ExecutorCompletionService<WorkerResult>( executor );
+        this.permits = permits;
+        this.listener = listener;
+    }
+
+    /**
+     * Submits a task, first waiting for a permit if all are taken.
+     */
+    void submit( Callable<WorkerResult> task ) throws InterruptedException
+    {
+        while ( inFlight >= permits )
+        {
+            finished( completions.take() );
+        }
+        completions.submit( task );
+        inFlight++;
+    }
+
+    /**
+     * Reports any tasks that have finished, without waiting for more.
+     */
+    void drainCompleted()
+    {
+        Future<WorkerResult> done;
+        while ( ( done = completions.poll() ) != null )
+        {
+            finished( done );
+        }
+    }
+
+    /**
+     * Waits for all tasks in flight to finish, and shuts down the executor.
+     */
+    void awaitAll( long timeout, TimeUnit unit ) throws InterruptedException
+    {
+        executor.shutdown();
+        long deadline = System.nanoTime() + unit.toNanos( timeout );
+        while ( inFlight > 0 )
+        {
+            Future<WorkerResult> done = completions.poll( deadline - System.nanoTime(), TimeUnit.NANOSECONDS );
+            if ( done == null )
+            {
+                System.err.println( inFlight + " tasks failed to terminate" );
+                executor.shutdownNow();
+                return;
+            }
+            finished( done );
+        }
+    }
+
+    int inFlight()
+    {
+        return inFlight;
+    }
+
+    private void finished( Future<WorkerResult> done )
+    {
+        inFlight--;
+        try
+        {
+            listener.taskFinished( done.get() );
+        }
+        catch ( ExecutionException e )
+        {
+            e.printStackTrace();
+        }
+        catch ( InterruptedException e )
+        {
+            // Can't happen, the future is done
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Describes the load {@link MixedLoadBenchCase} puts on the database: the
+ * operations used to populate the graph before measuring, and one or more
+ * phases, each running a weighted mix of operations for its share of the
+ * total run time. Workloads are read from JSON files, for instance
+ *
+ * <pre>
+ * {
+ *   "name" : "read-heavy",
+ *   "populate" : [ { "type" : "BULK_CREATE", "opsPerTask" : 25000 } ],
+ *   "phases" : [ {
+ *     "name" : "concurrent",
+ *     "duration" : 1,
+ *     "operations" : [
+ *       { "type" : "SAMPLE_READ", "weight" : 0.9, "opsPerTask" : 400, "index" : true },
+ *       { "type" : "CREATE", "weight" : 0.1, "opsPerTask" : 100 } ]
+ *   } ]
+ * }
+ * </pre>
+ *
+ * The workload named {@value #DEFAULT_NAME} is the mix the benchmark has
+ * always run.
+ */
+public class Workload
+{
+    public static final String DEFAULT_NAME = "default";
+
+    private static final String DEFAULT_RESOURCE = "default-workload.json";
+
+    /**
+     * One kind of operation in a phase, and how often it is picked.
+     */
+    public static class Operation
+    {
+        @JsonProperty private OperationType type;
+        // Relative to the other operations in the phase
+        @JsonProperty private double weight = 1;
+        @JsonProperty private int opsPerTask = 1;
+        // Write to or read from the index, for the types that use it
+        @JsonProperty private boolean index = false;
+
+        private Operation(){}
+
+        public OperationType getType()
+        {
+            return type;
+        }
+
+        public double getWeight()
+        {
+            return weight;
+        }
+
+        public int getOpsPerTask()
+        {
+            return opsPerTask;
+        }
+
+        public boolean useIndex()
+        {
+            return index;
+        }
+    }
+
+    public static class Phase
+    {
+        @JsonProperty private String name;
+        // Share of the total run time, relative to the other phases
+        @JsonProperty private double duration = 1;
+        // Tasks in flight, 0 for the run wide client setting
+        @JsonProperty private int clients = 0;
+        @JsonProperty private List<Operation> operations = new ArrayList<Operation>();
+
+        private Phase(){}
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public double getDuration()
+        {
+            return duration;
+        }
+
+        public int getClients()
+        {
+            return clients;
+        }
+
+        public List<Operation> getOperations()
+        {
+            return operations;
+        }
+
+        /**
+         * @return true if this phase only runs bulk operations
+         */
+        public boolean isBulk()
+        {
+            for ( Operation operation : operations )
+            {
+                if ( !operation.getType().isBulk() )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Picks an operation according to the weights.
+         *
+         * @param dice uniformly distributed in [0, 1)
+         */
+        public Operation pick( double dice )
+        {
+            double totalWeight = 0;
+            for ( Operation operation : operations )
+            {
+                totalWeight += operation.getWeight();
+            }
+            double target = dice * totalWeight;
+            for ( Operation operation : operations )
+            {
+                target -= operation.getWeight();
+                if ( target < 0 )
+                {
+                    return operation;
+                }
+            }
+            // Only rounding gets us here
+            return operations.get( operations.size() - 1 );
+        }
+    }
+
+    @JsonProperty private String name;
+    @JsonProperty private List<Operation> populate = new ArrayList<Operation>();
+    @JsonProperty private List<Phase> phases = new ArrayList<Phase>();
+
+    private Workload(){}
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public List<Operation> getPopulate()
+    {
+        return populate;
+    }
+
+    public List<Phase> getPhases()
+    {
+        return phases;
+    }
+
+    /**
+     * @param totalMillis time to run the whole workload
+     * @return the part of totalMillis the given phase should run for
+     */
+    public long durationMillis( Phase phase, long totalMillis )
+    {
+        return durationMillis( phase, phases, totalMillis );
+    }
+
+    /**
+     * @param totalMillis time to run all of the given phases
+     * @return the part of totalMillis the given phase should run for
+     */
+    public static long durationMillis( Phase phase, List<Phase> phases, long totalMillis )
+    {
+        double totalDuration = 0;
+        for ( Phase p : phases )
+        {
+            totalDuration += p.getDuration();
+        }
+        return (long) ( totalMillis * phase.getDuration() / totalDuration );
+    }
+
+    /**
+     * @return the phases without bulk operations, or all of them if every
+     *         phase has some
+     */
+    public List<Phase> steadyPhases()
+    {
+        List<Phase> steady = new ArrayList<Phase>();
+        for ( Phase phase : phases )
+        {
+            if ( !phase.isBulk() )
+            {
+                steady.add( phase );
+            }
+        }
+        return steady.isEmpty() ? phases : steady;
+    }
+
+    public static Workload defaultWorkload()
+    {
+        InputStream in = Workload.class.getResourceAsStream( DEFAULT_RESOURCE );
+        if ( in == null )
+        {
+            throw new IllegalStateException( "Default workload '" + DEFAULT_RESOURCE + "' is missing from the classpath." );
+        }
+        try
+        {
+            try
+            {
+                return validate( new ObjectMapper().readValue( in, Workload.class ), DEFAULT_RESOURCE );
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read default workload.", e );
+        }
+    }
+
+    public static Workload load( File file )
+    {
+        try
+        {
+            return validate( new ObjectMapper().readValue( file, Workload.class ), file.getAbsolutePath() );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read workload from '" + file.getAbsolutePath() + "'.", e );
+        }
+    }
+
+    public static Workload parse( String json )
+    {
+        try
+        {
+            return validate( new ObjectMapper().readValue( json, Workload.class ), "<string>" );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to parse workload.", e );
+        }
+    }
+
+    private static Workload validate( Workload workload, String source )
+    {
+        if ( workload.name == null )
+        {
+            throw new IllegalArgumentException( "Workload in '" + source + "' has no name." );
+        }
+        if ( workload.phases.isEmpty() )
+        {
+            throw new IllegalArgumentException( "Workload '" + workload.name + "' has no phases." );
+        }
+        for ( Operation operation : workload.populate )
+        {
+            validate( workload, operation );
+        }
+        for ( Phase phase : workload.phases )
+        {
+            if ( phase.operations.isEmpty() )
+            {
+                throw new IllegalArgumentException( "Phase '" + phase.name + "' of workload '" + workload.name
+                                                    + "' has no operations." );
+            }
+            if ( phase.duration <= 0 )
+            {
+                throw new IllegalArgumentException( "Phase '" + phase.name + "' of workload '" + workload.name
+                                                    + "' must have a positive duration." );
+            }
+            for ( Operation operation : phase.operations )
+            {
+                validate( workload, operation );
+            }
+        }
+        return workload;
+    }
+
+    private static void validate( Workload workload, Operation operation )
+    {
+        if ( operation.type == null )
+        {
+            throw new IllegalArgumentException( "Operation without a type in workload '" + workload.name + "'." );
+        }
+        if ( operation.weight < 0 || operation.opsPerTask < 1 )
+        {
+            throw new IllegalArgumentException( operation.type + " in workload '" + workload.name
+                                                + "' needs a non-negative weight and at least one op per task." );
+        }
+    }
+}
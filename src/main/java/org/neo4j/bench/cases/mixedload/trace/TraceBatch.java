@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The operations a client performed as one unit, a transaction or a read.
+ * Batches are what gets timed when a trace is replayed.
+ */
+public class TraceBatch
+{
+    private final long offsetNanos;
+    private String operation;
+    private final List<TraceEntry> entries;
+    // Batches handed out while not recording drop their entries
+    private final boolean recording;
+
+    TraceBatch( long offsetNanos, boolean recording )
+    {
+        this( offsetNanos, null, new ArrayList<TraceEntry>(), recording );
+    }
+
+    private TraceBatch( long offsetNanos, String operation, List<TraceEntry> entries, boolean recording )
+    {
+        this.offsetNanos = offsetNanos;
+        this.operation = operation;
+        this.entries = entries;
+        this.recording = recording;
+    }
+
+    public void add( TraceEntry entry )
+    {
+        if ( recording )
+        {
+            entries.add( entry );
+        }
+    }
+
+    /**
+     * @return nanoseconds from the start of the trace to when this batch
+     *         was started
+     */
+    public long getOffsetNanos()
+    {
+        return offsetNanos;
+    }
+
+    /**
+     * @return the name latencies of this batch are reported under
+     */
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    public List<TraceEntry> getEntries()
+    {
+        return Collections.unmodifiableList( entries );
+    }
+
+    public boolean isWrite()
+    {
+        for ( TraceEntry entry : entries )
+        {
+            if ( entry.getKind().isWrite() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void setOperation( String operation )
+    {
+        this.operation = operation;
+    }
+
+    void writeTo( DataOutput out ) throws IOException
+    {
+        out.writeLong( offsetNanos );
+        out.writeUTF( operation );
+        out.writeInt( entries.size() );
+        for ( TraceEntry entry : entries )
+        {
+            entry.writeTo( out );
+        }
+    }
+
+    static TraceBatch readFrom( DataInput in ) throws IOException
+    {
+        long offsetNanos = in.readLong();
+        String operation = in.readUTF();
+        int size = in.readInt();
+        List<TraceEntry> entries = new ArrayList<TraceEntry>( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            entries.add( TraceEntry.readFrom( in ) );
+        }
+        return new TraceBatch( offsetNanos, operation, entries, true );
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A single operation in a trace. Which of the fields are used depends on the
+ * {@link Kind}.
+ */
+public class TraceEntry
+{
+    public static enum Kind
+    {
+        CREATE_NODE( true ),
+        CREATE_RELATIONSHIP( true ),
+        SET_NODE_PROPERTY( true ),
+        DELETE_NODE( true ),
+        READ_NODE_PROPERTIES( false ),
+        READ_RELATIONSHIPS( false ),
+        FULL_SCAN( false );
+
+        private final boolean write;
+
+        private Kind( boolean write )
+        {
+            this.write = write;
+        }
+
+        public boolean isWrite()
+        {
+            return write;
+        }
+    }
+
+    private static final byte INT = 0;
+    private static final byte LONG = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte STRING = 3;
+    private static final byte STRING_ARRAY = 4;
+
+    private final Kind kind;
+    private final long nodeId;
+    // End node of a created relationship
+    private final long otherNodeId;
+    // Property key, or relationship type name
+    private final String key;
+    private final Object value;
+    // Write to or read from the index
+    private final boolean index;
+
+    private TraceEntry( Kind kind, long nodeId, long otherNodeId, String key, Object value, boolean index )
+    {
+        this.kind = kind;
+        this.nodeId = nodeId;
+        this.otherNodeId = otherNodeId;
+        this.key = key;
+        this.value = value;
+        this.index = index;
+    }
+
+    public static TraceEntry createNode( long nodeId )
+    {
+        return new TraceEntry( Kind.CREATE_NODE, nodeId, -1, null, null, false );
+    }
+
+    public static TraceEntry createRelationship( long fromNodeId, long toNodeId, String type )
+    {
+        return new TraceEntry( Kind.CREATE_RELATIONSHIP, fromNodeId, toNodeId, type, null, false );
+    }
+
+    public static TraceEntry setNodeProperty( long nodeId, String key, Object value, boolean index )
+    {
+        return new TraceEntry( Kind.SET_NODE_PROPERTY, nodeId, -1, key, value, index );
+    }
+
+    public static TraceEntry deleteNode( long nodeId )
+    {
+        return new TraceEntry( Kind.DELETE_NODE, nodeId, -1, null, null, false );
+    }
+
+    public static TraceEntry readNodeProperties( long nodeId, boolean index )
+    {
+        return new TraceEntry( Kind.READ_NODE_PROPERTIES, nodeId, -1, null, null, index );
+    }
+
+    public static TraceEntry readRelationships( long nodeId, boolean index )
+    {
+        return new TraceEntry( Kind.READ_RELATIONSHIPS, nodeId, -1, null, null, index );
+    }
+
+    public static TraceEntry fullScan()
+    {
+        return new TraceEntry( Kind.FULL_SCAN, -1, -1, null, null, false );
+    }
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    public long getNodeId()
+    {
+        return nodeId;
+    }
+
+    public long getOtherNodeId()
+    {
+        return otherNodeId;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public Object getValue()
+    {
+        return value;
+    }
+
+    public boolean useIndex()
+    {
+        return index;
+    }
+
+    void writeTo( DataOutput out ) throws IOException
+    {
+        out.writeByte( kind.ordinal() );
+        switch ( kind )
+        {
+        case CREATE_NODE:
+        case DELETE_NODE:
+            out.writeLong( nodeId );
+            break;
+        case CREATE_RELATIONSHIP:
+            out.writeLong( nodeId );
+            out.writeLong( otherNodeId );
+            out.writeUTF( key );
+            break;
+        case SET_NODE_PROPERTY:
+            out.writeLong( nodeId );
+            out.writeUTF( key );
+            writeValue( out, value );
+            out.writeBoolean( index );
+            break;
+        case READ_NODE_PROPERTIES:
+        case READ_RELATIONSHIPS:
+            out.writeLong( nodeId );
+            out.writeBoolean( index );
+            break;
+        case FULL_SCAN:
+            break;
+        }
+    }
+
+    static TraceEntry readFrom( DataInput in ) throws IOException
+    {
+        Kind kind = Kind.values()[in.readByte()];
+        switch ( kind )
+        {
+        case CREATE_NODE:
+            return createNode( in.readLong() );
+        case DELETE_NODE:
+            return deleteNode( in.readLong() );
+        case CREATE_RELATIONSHIP:
+            return createRelationship( in.readLong(), in.readLong(), in.readUTF() );
+        case SET_NODE_PROPERTY:
+            return setNodeProperty( in.readLong(), in.readUTF(), readValue( in ), in.readBoolean() );
+        case READ_NODE_PROPERTIES:
+            return readNodeProperties( in.readLong(), in.readBoolean() );
+        case READ_RELATIONSHIPS:
+            return readRelationships( in.readLong(), in.readBoolean() );
+        default:
+            return fullScan();
+        }
+    }
+
+    private static void writeValue( DataOutput out, Object value ) throws IOException
+    {
+        if ( value instanceof Integer )
+        {
+            out.writeByte( INT );
+            out.writeInt( (Integer) value );
+        }
+        else if ( value instanceof Long )
+        {
+            out.writeByte( LONG );
+            out.writeLong( (Long) value );
+        }
+        else if ( value instanceof Boolean )
+        {
+            out.writeByte( BOOLEAN );
+            out.writeBoolean( (Boolean) value );
+        }
+        else if ( value instanceof String )
+        {
+            out.writeByte( STRING );
+            out.writeUTF( (String) value );
+        }
+        else if ( value instanceof String[] )
+        {
+            String[] strings = (String[]) value;
+            out.writeByte( STRING_ARRAY );
+            out.writeInt( strings.length );
+            for ( String string : strings )
+            {
+                out.writeUTF( string );
+            }
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Can't trace property value " + value );
+        }
+    }
+
+    private static Object readValue( DataInput in ) throws IOException
+    {
+        byte type = in.readByte();
+        switch ( type )
+        {
+        case INT:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case BOOLEAN:
+            return in.readBoolean();
+        case STRING:
+            return in.readUTF();
+        case STRING_ARRAY:
+            String[] strings = new String[in.readInt()];
+            for ( int i = 0; i < strings.length; i++ )
+            {
+                strings[i] = in.readUTF();
+            }
+            return strings;
+        default:
+            throw new IOException( "Unknown property value type " + type + " in trace." );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return kind + "[" + nodeId + ", " + otherNodeId + ", " + key + ", "
+               + ( value instanceof String[] ? Arrays.toString( (String[]) value ) : value ) + ", " + index + "]";
+    }
+}
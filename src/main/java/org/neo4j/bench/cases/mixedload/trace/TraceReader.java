@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Reads back the batches written by a {@link TraceRecorder}, one at a time.
+ */
+public class TraceReader
+{
+    private final File file;
+    private final DataInputStream in;
+
+    public TraceReader( File file )
+    {
+        this.file = file;
+        try
+        {
+            this.in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), 1 << 16 ) );
+            if ( in.readInt() != TraceRecorder.MAGIC || in.readByte() != TraceRecorder.VERSION )
+            {
+                in.close();
+                throw new IllegalArgumentException( "'" + file.getAbsolutePath() + "' is not a trace file." );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to open trace file '" + file.getAbsolutePath() + "'.", e );
+        }
+    }
+
+    /**
+     * @return the next batch, or null at the end of the trace
+     */
+    public TraceBatch next()
+    {
+        try
+        {
+            return TraceBatch.readFrom( in );
+        }
+        catch ( EOFException e )
+        {
+            return null;
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read trace file '" + file.getAbsolutePath() + "'.", e );
+        }
+    }
+
+    public void close()
+    {
+        try
+        {
+            in.close();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to close trace file '" + file.getAbsolutePath() + "'.", e );
+        }
+    }
+}
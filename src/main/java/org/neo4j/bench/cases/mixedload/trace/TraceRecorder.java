@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes the operations clients perform to a compact binary file, so the
+ * exact same operation stream can be replayed later with a
+ * {@link TraceReplayer}. Workers start a {@link TraceBatch} for each
+ * transaction or read, add entries to it, and hand it back once it has
+ * succeeded. Failed transactions are left out of the trace.
+ *
+ * Batches from concurrent clients are written in the order they finish.
+ */
+public class TraceRecorder
+{
+    static final int MAGIC = 0x4E545243; // "NTRC"
+    static final byte VERSION = 1;
+
+    /**
+     * Records nothing.
+     */
+    public static final TraceRecorder NONE = new TraceRecorder();
+
+    private final File file;
+    private final DataOutputStream out;
+    private final long startNanos;
+
+    private TraceRecorder()
+    {
+        this.file = null;
+        this.out = null;
+        this.startNanos = 0;
+    }
+
+    private TraceRecorder( File file ) throws IOException
+    {
+        this.file = file;
+        this.out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ), 1 << 16 ) );
+        out.writeInt( MAGIC );
+        out.writeByte( VERSION );
+        this.startNanos = System.nanoTime();
+    }
+
+    public static TraceRecorder open( File file )
+    {
+        try
+        {
+            if ( file.getAbsoluteFile().getParentFile() != null )
+            {
+                file.getAbsoluteFile().getParentFile().mkdirs();
+            }
+            return new TraceRecorder( file );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to create trace file '" + file.getAbsolutePath() + "'.", e );
+        }
+    }
+
+    public boolean isRecording()
+    {
+        return out != null;
+    }
+
+    public TraceBatch begin()
+    {
+        return new TraceBatch( System.nanoTime() - startNanos, isRecording() );
+    }
+
+    /**
+     * @param operation the name to report the latency of the batch under
+     *            when it is replayed
+     */
+    public void record( String operation, TraceBatch batch )
+    {
+        if ( !isRecording() )
+        {
+            return;
+        }
+        batch.setOperation( operation );
+        synchronized ( this )
+        {
+            try
+            {
+                batch.writeTo( out );
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( "Unable to write to trace file '" + file.getAbsolutePath() + "'.", e );
+            }
+        }
+    }
+
+    public synchronized void close()
+    {
+        if ( !isRecording() )
+        {
+            return;
+        }
+        try
+        {
+            out.close();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to close trace file '" + file.getAbsolutePath() + "'.", e );
+        }
+    }
+}
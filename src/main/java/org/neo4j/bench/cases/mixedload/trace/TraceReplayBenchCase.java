@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.trace;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.OPERATION;
+import static org.neo4j.bench.domain.Units.SECOND;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.kernel.impl.util.FileUtils;
+
+/**
+ * Replays a recorded operation trace against an empty database. Since the
+ * operation stream is identical from run to run, and from version to
+ * version, differences in the results come from the database alone.
+ */
+public class TraceReplayBenchCase implements BenchmarkCase
+{
+    private final File traceFile;
+    private final boolean recordedSpeed;
+    private final String storeDir;
+
+    private GraphDatabaseService graphDb;
+
+    /**
+     * @param recordedSpeed replay batches at the pace they were recorded at,
+     *            rather than as fast as possible
+     */
+    public TraceReplayBenchCase( File traceFile, boolean recordedSpeed )
+    {
+        this.traceFile = traceFile;
+        this.recordedSpeed = recordedSpeed;
+        this.storeDir = "db-replay-" + traceFile.getName();
+    }
+
+    @Override
+    public void setUp()
+    {
+        try
+        {
+            FileUtils.deleteRecursively( new File( storeDir ) );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to clear replay store '" + storeDir + "'.", e );
+        }
+        graphDb = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( storeDir ).
+                loadPropertiesFromFile( "../config.props" ).
+                newGraphDatabase();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        TraceReplayer replayer = new TraceReplayer( graphDb, traceFile, recordedSpeed );
+        long start = System.currentTimeMillis();
+        replayer.replay();
+        long time = System.currentTimeMillis() - start;
+
+        System.out.println( "Replayed " + replayer.getBatches() + " batches from " + traceFile + " in " + time + "ms, "
+                            + replayer.getFailedBatches() + " failed" );
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        // Failed batches rolled back, a build that fails them fast shouldn't look faster
+        long succeeded = replayer.getBatches() - replayer.getFailedBatches();
+        metrics.add( new CaseResult.Metric( "Replay throughput", succeeded * 1000.0 / Math.max( time, 1 ),
+                OPERATION.per( SECOND ), /* track regression = */ !recordedSpeed, BIGGER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "Failed batches", replayer.getFailedBatches(),
+                OPERATION, SMALLER_IS_BETTER ) );
+        metrics.addAll( replayer.getLatencies().toMetrics() );
+
+        return new CaseResult( getClass().getSimpleName() + "[" + traceFile.getName() + "]",
+                metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    @Override
+    public void tearDown()
+    {
+        graphDb.shutdown();
+    }
+}
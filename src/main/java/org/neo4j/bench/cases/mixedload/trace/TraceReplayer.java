@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.trace;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.bench.cases.mixedload.workers.PropertyAddWorker;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.Index;
+
+/**
+ * Runs the operations of a trace against a database, one batch at a time, in
+ * the order they were recorded. Node ids are remapped as nodes get created,
+ * so a trace recorded against one store replays against an empty one. A
+ * batch that touches a node the trace did not create, or has deleted, fails
+ * rather than act on whatever node has that id in this database.
+ */
+public class TraceReplayer
+{
+    private final GraphDatabaseService graphDb;
+    private final File traceFile;
+    // Wait for the recorded offset of each batch, rather than replay flat out
+    private final boolean recordedSpeed;
+
+    private final Index<Node> nodeIndex;
+    private final Index<Relationship> relIndex;
+
+    // Recorded node id -> node id in this database
+    private final Map<Long, Long> ids = new HashMap<Long, Long>();
+    private final OperationLatencies latencies = new OperationLatencies();
+    private long batches;
+    private long failedBatches;
+
+    public TraceReplayer( GraphDatabaseService graphDb, File traceFile, boolean recordedSpeed )
+    {
+        this.graphDb = graphDb;
+        this.traceFile = traceFile;
+        this.recordedSpeed = recordedSpeed;
+        this.nodeIndex = graphDb.index().forNodes( PropertyAddWorker.NodeIndexName );
+        this.relIndex = graphDb.index().forRelationships( PropertyAddWorker.RelationshipIndexName );
+    }
+
+    public void replay()
+    {
+        TraceReader reader = new TraceReader( traceFile );
+        try
+        {
+            long replayStart = System.nanoTime();
+            TraceBatch batch;
+            while ( ( batch = reader.next() ) != null )
+            {
+                if ( recordedSpeed )
+                {
+                    long wait = replayStart + batch.getOffsetNanos() - System.nanoTime();
+                    if ( wait > 0 )
+                    {
+                        LockSupport.parkNanos( wait );
+                    }
+                }
+                long start = System.nanoTime();
+                if ( batch.isWrite() ? applyWrite( batch ) : applyRead( batch ) )
+                {
+                    latencies.record( batch.getOperation(), start );
+                }
+                else
+                {
+                    failedBatches++;
+                }
+                batches++;
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    public OperationLatencies getLatencies()
+    {
+        return latencies;
+    }
+
+    public long getBatches()
+    {
+        return batches;
+    }
+
+    public long getFailedBatches()
+    {
+        return failedBatches;
+    }
+
+    private boolean applyWrite( TraceBatch batch )
+    {
+        Map<Long, Long> created = new HashMap<Long, Long>();
+        List<Long> deleted = new ArrayList<Long>();
+        Transaction tx = graphDb.beginTx();
+        try
+        {
+            for ( TraceEntry entry : batch.getEntries() )
+            {
+                apply( entry, created, deleted );
+            }
+            tx.success();
+        }
+        catch ( Exception e )
+        {
+            tx.failure();
+            return false;
+        }
+        finally
+        {
+            tx.finish();
+        }
+        // Only what made it into the store changes the mapping
+        ids.putAll( created );
+        ids.keySet().removeAll( deleted );
+        return true;
+    }
+
+    private boolean applyRead( TraceBatch batch )
+    {
+        try
+        {
+            for ( TraceEntry entry : batch.getEntries() )
+            {
+                apply( entry, null, null );
+            }
+            return true;
+        }
+        catch ( Exception e )
+        {
+            return false;
+        }
+    }
+
+    private void apply( TraceEntry entry, Map<Long, Long> created, List<Long> deleted )
+    {
+        switch ( entry.getKind() )
+        {
+        case CREATE_NODE:
+            created.put( entry.getNodeId(), graphDb.createNode().getId() );
+            break;
+        case CREATE_RELATIONSHIP:
+            node( entry.getNodeId(), created ).createRelationshipTo( node( entry.getOtherNodeId(), created ),
+                    DynamicRelationshipType.withName( entry.getKey() ) );
+            break;
+        case SET_NODE_PROPERTY:
+            Node node = node( entry.getNodeId(), created );
+            node.setProperty( entry.getKey(), entry.getValue() );
+            if ( entry.useIndex() )
+            {
+                nodeIndex.add( node, entry.getKey(), entry.getValue() );
+            }
+            break;
+        case DELETE_NODE:
+            Node toDelete = node( entry.getNodeId(), created );
+            for ( Relationship rel : toDelete.getRelationships( Direction.BOTH ) )
+            {
+                rel.delete();
+            }
+            toDelete.delete();
+            deleted.add( entry.getNodeId() );
+            break;
+        case READ_NODE_PROPERTIES:
+            Node read = node( entry.getNodeId(), created );
+            for ( String propKey : read.getPropertyKeys() )
+            {
+                Object propValue = read.getProperty( propKey );
+                if ( entry.useIndex() )
+                {
+                    nodeIndex.get( propKey, propValue ).close();
+                }
+            }
+            break;
+        case READ_RELATIONSHIPS:
+            for ( Relationship rel : node( entry.getNodeId(), created ).getRelationships() )
+            {
+                for ( String propKey : rel.getPropertyKeys() )
+                {
+                    Object propValue = rel.getProperty( propKey );
+                    if ( entry.useIndex() )
+                    {
+                        relIndex.get( propKey, propValue ).close();
+                    }
+                }
+            }
+            break;
+        case FULL_SCAN:
+            for ( Node scanned : graphDb.getAllNodes() )
+            {
+                for ( Relationship rel : scanned.getRelationships() )
+                {
+                    for ( String propKey : rel.getPropertyKeys() )
+                    {
+                        rel.getProperty( propKey );
+                    }
+                }
+                for ( String propKey : scanned.getPropertyKeys() )
+                {
+                    scanned.getProperty( propKey );
+                }
+            }
+            break;
+        }
+    }
+
+    private Node node( long recordedId, Map<Long, Long> created )
+    {
+        Long id = created != null ? created.get( recordedId ) : null;
+        if ( id == null )
+        {
+            id = ids.get( recordedId );
+        }
+        if ( id == null )
+        {
+            throw new NotFoundException( "Recorded node " + recordedId + " was not created by the trace." );
+        }
+        return graphDb.getNodeById( id );
+    }
+}
@@ -21,17 +21,24 @@ package org.neo4j.bench.cases.mixedload.workers;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.Callable;
 
+import org.neo4j.bench.cases.mixedload.trace.TraceBatch;
+import org.neo4j.bench.cases.mixedload.trace.TraceEntry;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
+import org.neo4j.bench.util.NodeIdPool;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
 
-public class BulkCreateWorker implements Callable<int[]>
+public class BulkCreateWorker implements Callable<WorkerResult>
 {
+    public static final String BULK_CREATE = "Bulk create tx";
 
     private enum RelType implements RelationshipType
     {
@@ -39,19 +46,25 @@ public class BulkCreateWorker implements Callable<int[]>
     }
 
     private final GraphDatabaseService graphDb;
-    private final Queue<Node> nodes;
+    private final NodeIdPool nodes;
     private final Random r;
+    private final TraceRecorder trace;
     private int ops;
 
     private int reads;
     private int writes;
 
-    public BulkCreateWorker( GraphDatabaseService graphDb, Queue<Node> nodes,
-            int ops )
+    private final OperationLatencies latencies = new OperationLatencies();
+    private final OperationAllocations allocations = new OperationAllocations();
+    private final ThroughputSeries throughput = new ThroughputSeries();
+
+    public BulkCreateWorker( GraphDatabaseService graphDb, NodeIdPool nodes,
+            int ops, Random r, TraceRecorder trace )
     {
         this.graphDb = graphDb;
         this.nodes = nodes;
-        this.r = new Random();
+        this.r = r;
+        this.trace = trace;
         this.ops = ops;
 
         this.reads = 0;
@@ -59,11 +72,13 @@ public class BulkCreateWorker implements Callable<int[]>
     }
 
     @Override
-    public int[] call() throws Exception
+    public WorkerResult call() throws Exception
     {
         List<Node> myNodes = new LinkedList<Node>();
-        int[] result = new int[3];
         long time = System.currentTimeMillis();
+        long startBytes = OperationAllocations.threadAllocatedBytes();
+        long start = System.nanoTime();
+        TraceBatch batch = trace.begin();
 
         Transaction tx = graphDb.beginTx();
         try
@@ -72,12 +87,14 @@ public class BulkCreateWorker implements Callable<int[]>
             {
                 if ( myNodes.size() < 4 || r.nextDouble() < 0.75 )
                 {
-                    myNodes.add( graphDb.createNode() );
+                    Node node = graphDb.createNode();
+                    batch.add( TraceEntry.createNode( node.getId() ) );
+                    myNodes.add( node );
                     writes += 1;
                 }
                 else
                 {
-                    createRandomRelationship( myNodes );
+                    createRandomRelationship( myNodes, batch );
                 }
             }
             tx.success();
@@ -91,15 +108,21 @@ public class BulkCreateWorker implements Callable<int[]>
         {
             tx.finish();
         }
-        result[0] = reads;
-        result[1] = writes;
-        result[2] = (int) ( System.currentTimeMillis() - time );
-        // Don't measure insertion time in the common queue
-        nodes.addAll( myNodes );
+        allocations.record( BULK_CREATE, startBytes );
+        latencies.record( BULK_CREATE, start );
+        throughput.update( reads, writes );
+        trace.record( BULK_CREATE, batch );
+        WorkerResult result = new WorkerResult( reads, writes, (int) ( System.currentTimeMillis() - time ), latencies, throughput,
+                allocations );
+        // Don't measure insertion time in the common pool
+        for ( Node node : myNodes )
+        {
+            nodes.add( node.getId() );
+        }
         return result;
     }
 
-    private void createRandomRelationship( List<Node> myNodes )
+    private void createRandomRelationship( List<Node> myNodes, TraceBatch batch )
     {
         int one, two;
         do
@@ -116,12 +139,12 @@ public class BulkCreateWorker implements Callable<int[]>
 
         if ( r.nextBoolean() )
         {
-            from.createRelationshipTo( to, RelType.TYPE_BULK );
-        }
-        else
-        {
-            to.createRelationshipTo( from, RelType.TYPE_BULK );
+            Node swap = from;
+            from = to;
+            to = swap;
         }
+        from.createRelationshipTo( to, RelType.TYPE_BULK );
+        batch.add( TraceEntry.createRelationship( from.getId(), to.getId(), RelType.TYPE_BULK.name() ) );
         reads += 2; // For the nodes
         writes += 1; // For the relationship
     }
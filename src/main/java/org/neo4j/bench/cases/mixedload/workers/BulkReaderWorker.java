@@ -21,32 +21,48 @@ package org.neo4j.bench.cases.mixedload.workers;
 
 import java.util.concurrent.Callable;
 
+import org.neo4j.bench.cases.mixedload.trace.TraceBatch;
+import org.neo4j.bench.cases.mixedload.trace.TraceEntry;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
-public class BulkReaderWorker implements Callable<int[]>
+public class BulkReaderWorker implements Callable<WorkerResult>
 {
+    public static final String FULL_SCAN = "Full graph scan";
 
     private final GraphDatabaseService graphDb;
+    private final TraceRecorder trace;
 
     private int reads;
     private final int writes;
 
-    public BulkReaderWorker( GraphDatabaseService graphDb )
+    private final OperationLatencies latencies = new OperationLatencies();
+    private final OperationAllocations allocations = new OperationAllocations();
+    private final ThroughputSeries throughput = new ThroughputSeries();
+
+    public BulkReaderWorker( GraphDatabaseService graphDb, TraceRecorder trace )
     {
         this.graphDb = graphDb;
+        this.trace = trace;
 
         this.reads = 0;
         this.writes = 0;
     }
 
     @Override
-    public int[] call() throws Exception
+    public WorkerResult call() throws Exception
     {
         long time = System.currentTimeMillis();
         for ( int i = 0; i < 10; i++ )
         {
+            long startBytes = OperationAllocations.threadAllocatedBytes();
+            long start = System.nanoTime();
+            TraceBatch batch = trace.begin();
             for ( Node node : graphDb.getAllNodes() )
             {
                 try
@@ -66,6 +82,8 @@ public class BulkReaderWorker implements Callable<int[]>
                         node.getProperty( propertyKey );
                         reads += 2; // Prop key and prop value
                     }
+                    // A scan takes long, spread its reads over the windows it spans
+                    throughput.update( reads, writes );
                 }
                 catch (Exception e)
                 {
@@ -77,12 +95,14 @@ public class BulkReaderWorker implements Callable<int[]>
                     }
                 }
             }
+            allocations.record( FULL_SCAN, startBytes );
+            latencies.record( FULL_SCAN, start );
+            batch.add( TraceEntry.fullScan() );
+            trace.record( FULL_SCAN, batch );
         }
 
-        int[] result = new int[3];
-        result[0] = reads;
-        result[1] = writes;
-        result[2] = (int) ( System.currentTimeMillis() - time );
-        return result;
+        throughput.update( reads, writes );
+        return new WorkerResult( reads, writes, (int) ( System.currentTimeMillis() - time ), latencies, throughput,
+                allocations );
     }
 }
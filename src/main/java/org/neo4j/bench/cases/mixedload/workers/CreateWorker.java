@@ -19,17 +19,24 @@
  */
 package org.neo4j.bench.cases.mixedload.workers;
 
-import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.Callable;
 
+import org.neo4j.bench.cases.mixedload.trace.TraceBatch;
+import org.neo4j.bench.cases.mixedload.trace.TraceEntry;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
+import org.neo4j.bench.util.NodeIdPool;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
 
-public class CreateWorker implements Callable<int[]>
+public class CreateWorker implements Callable<WorkerResult>
 {
+    public static final String CREATE_NODE = "Create node tx";
+    public static final String CREATE_RELATIONSHIP = "Create relationship tx";
 
     private enum RelType implements RelationshipType
     {
@@ -37,19 +44,25 @@ public class CreateWorker implements Callable<int[]>
     }
 
     private final GraphDatabaseService graphDb;
-    private final Queue<Node> nodes;
+    private final NodeIdPool nodes;
     private final Random r;
+    private final TraceRecorder trace;
     private int ops;
 
     private int reads;
     private int writes;
 
-    public CreateWorker( GraphDatabaseService graphDb, Queue<Node> nodes,
-            int ops )
+    private final OperationLatencies latencies = new OperationLatencies();
+    private final OperationAllocations allocations = new OperationAllocations();
+    private final ThroughputSeries throughput = new ThroughputSeries();
+
+    public CreateWorker( GraphDatabaseService graphDb, NodeIdPool nodes,
+            int ops, Random r, TraceRecorder trace )
     {
         this.graphDb = graphDb;
         this.nodes = nodes;
-        this.r = new Random();
+        this.r = r;
+        this.trace = trace;
         this.ops = ops;
 
         this.reads = 0;
@@ -57,84 +70,77 @@ public class CreateWorker implements Callable<int[]>
     }
 
     @Override
-    public int[] call() throws Exception
+    public WorkerResult call() throws Exception
     {
         long time = System.currentTimeMillis();
         while ( ops-- > 0 )
         {
+            String operation;
+            long startBytes = OperationAllocations.threadAllocatedBytes();
+            long start = System.nanoTime();
+            TraceBatch batch = trace.begin();
             Transaction tx = graphDb.beginTx();
             try
             {
                 if ( r.nextDouble() < 0.75 || nodes.size() < 4 )
                 {
-                    createNode();
+                    operation = CREATE_NODE;
+                    createNode( batch );
                 }
                 else
                 {
-                    createRandomRelationship();
+                    operation = CREATE_RELATIONSHIP;
+                    createRandomRelationship( batch );
                 }
                 tx.success();
             }
             catch ( Exception e )
             {
                 tx.failure();
+                continue;
             }
             finally
             {
                 tx.finish();
             }
+            // Includes the commit, which is what a client waits for
+            allocations.record( operation, startBytes );
+            latencies.record( operation, start );
+            throughput.update( reads, writes );
+            trace.record( operation, batch );
         }
-        int[] result = new int[3];
-        result[0] = reads;
-        result[1] = writes;
-        result[2] = (int) ( System.currentTimeMillis() - time );
-        return result;
+        throughput.update( reads, writes );
+        return new WorkerResult( reads, writes, (int) ( System.currentTimeMillis() - time ), latencies, throughput,
+                allocations );
     }
 
-    private void createNode()
+    private void createNode( TraceBatch batch )
     {
-        nodes.offer( graphDb.createNode() );
+        long id = graphDb.createNode().getId();
+        batch.add( TraceEntry.createNode( id ) );
+        nodes.add( id );
         writes += 1; // The node
     }
 
-    private void createRandomRelationship()
+    private void createRandomRelationship( TraceBatch batch )
     {
-        int one, two;
+        long from, to;
         do
         {
-            one = r.nextInt( nodes.size() / 10 );
-            two = r.nextInt( nodes.size() / 10 );
+            from = nodes.randomId( r );
+            to = nodes.randomId( r );
         }
-        while ( one == two );
-
-        Node from, to;
-
-        int nextStop = Math.min( one, two );
-        int i = 0;
-        for ( ; i < nextStop; i++ )
-        {
-            nodes.offer( nodes.poll() );
-        }
-        from = nodes.poll();
-        nextStop = Math.max( one, two );
-        for ( ; i < nextStop; i++ )
-        {
-            nodes.offer( nodes.poll() );
-        }
-        to = nodes.poll();
+        while ( from == to && from != NodeIdPool.NO_ID );
 
         if ( r.nextBoolean() )
         {
-            graphDb.getNodeById( from.getId() ).createRelationshipTo(
-                    graphDb.getNodeById( to.getId() ), RelType.TYPE_GENERIC );
-        }
-        else
-        {
-            graphDb.getNodeById( to.getId() ).createRelationshipTo(
-                    graphDb.getNodeById( from.getId() ), RelType.TYPE_GENERIC );
+            long swap = from;
+            from = to;
+            to = swap;
         }
-        nodes.offer( from );
-        nodes.offer( to );
+        graphDb.getNodeById( from ).createRelationshipTo(
+                graphDb.getNodeById( to ), RelType.TYPE_GENERIC );
+        batch.add( TraceEntry.createRelationship( from, to, RelType.TYPE_GENERIC.name() ) );
         reads += 2; // For the nodes
         writes += 1; // For the relationship
     }
@@ -19,50 +19,68 @@
  */
 package org.neo4j.bench.cases.mixedload.workers;
 
-import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.Callable;
 
+import org.neo4j.bench.cases.mixedload.trace.TraceBatch;
+import org.neo4j.bench.cases.mixedload.trace.TraceEntry;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
+import org.neo4j.bench.util.NodeIdPool;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 
-public class DeleteWorker implements Callable<int[]>
+public class DeleteWorker implements Callable<WorkerResult>
 {
+    public static final String DELETE_NODE = "Delete node tx";
 
     private final GraphDatabaseService graphDb;
-    private final Queue<Node> nodes;
+    private final NodeIdPool nodes;
     private final Random r;
+    private final TraceRecorder trace;
     private int ops;
 
     private int reads;
     private int writes;
 
-    public DeleteWorker( GraphDatabaseService graphDb, Queue<Node> nodes,
-            int ops )
+    private final OperationLatencies latencies = new OperationLatencies();
+    private final OperationAllocations allocations = new OperationAllocations();
+    private final ThroughputSeries throughput = new ThroughputSeries();
+
+    public DeleteWorker( GraphDatabaseService graphDb, NodeIdPool nodes,
+            int ops, Random r, TraceRecorder trace )
     {
         this.graphDb = graphDb;
         this.nodes = nodes;
-        this.r = new Random();
+        this.r = r;
+        this.trace = trace;
         this.ops = ops;
         this.reads = 0;
         this.writes = 0;
     }
 
     @Override
-    public int[] call() throws Exception
+    public WorkerResult call() throws Exception
     {
         long time = System.currentTimeMillis();
         while ( ops-- > 0 )
         {
+            String operation = null;
+            long startBytes = OperationAllocations.threadAllocatedBytes();
+            long start = System.nanoTime();
+            TraceBatch batch = trace.begin();
             Transaction tx = graphDb.beginTx();
             try
             {
                 if ( r.nextDouble() > 0.4 )
                 {
-                    deleteRandomNode();
+                    operation = DELETE_NODE;
+                    deleteRandomNode( batch );
                 }
                 else
                 {
@@ -73,37 +91,39 @@ public class DeleteWorker implements Callable<int[]>
             catch ( Exception e )
             {
                 tx.failure();
+                continue;
             }
             finally
             {
                 tx.finish();
             }
+            if ( operation != null )
+            {
+                allocations.record( operation, startBytes );
+                latencies.record( operation, start );
+                throughput.update( reads, writes );
+                trace.record( operation, batch );
+            }
         }
-        int[] result = new int[3];
-        result[0] = reads;
-        result[1] = writes;
-        result[2] = (int) ( System.currentTimeMillis() - time );
-        return result;
+        throughput.update( reads, writes );
+        return new WorkerResult( reads, writes, (int) ( System.currentTimeMillis() - time ), latencies, throughput,
+                allocations );
     }
 
-    private void deleteRandomNode()
+    private void deleteRandomNode( TraceBatch batch )
     {
         if ( nodes.size() < 3 ) return;
-        int delIndex = r.nextInt( nodes.size() );
-        Node toDelete;
-
-        for ( int i = 0; i < delIndex; i++ )
-        {
-            nodes.offer( nodes.poll() );
-        }
-        toDelete = nodes.poll();
+        long delId = nodes.removeRandomId( r );
+        if ( delId == NodeIdPool.NO_ID ) return;
+        Node toDelete = graphDb.getNodeById( delId );
         for ( Relationship rel : toDelete.getRelationships( Direction.BOTH ) )
         {
             rel.delete();
             writes += 1; // The relationship delete
             reads += 1;
         }
-        graphDb.getNodeById( toDelete.getId() ).delete();
+        toDelete.delete();
+        batch.add( TraceEntry.deleteNode( delId ) );
         reads += 1; // The node read in
         writes += 1; // The node delete
     }
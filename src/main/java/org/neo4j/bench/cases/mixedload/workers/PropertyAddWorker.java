@@ -21,19 +21,26 @@ package org.neo4j.bench.cases.mixedload.workers;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 
+import org.neo4j.bench.cases.mixedload.trace.TraceBatch;
+import org.neo4j.bench.cases.mixedload.trace.TraceEntry;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
+import org.neo4j.bench.util.NodeIdPool;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.index.Index;
 
-public class PropertyAddWorker implements Callable<int[]>
+public class PropertyAddWorker implements Callable<WorkerResult>
 {
+    public static final String ADD_NODE_PROPERTY = "Add node property tx";
     public static final String NodeIndexName = "nodes";
     public static final String RelationshipIndexName = "relationships";
 
@@ -43,8 +50,9 @@ public class PropertyAddWorker implements Callable<int[]>
             + "!@#$%^&*()_+=-\\|<>?,./" ).toCharArray();
 
     private final GraphDatabaseService graphDb;
-    private final Queue<Node> nodes;
+    private final NodeIdPool nodes;
     private final Random r;
+    private final TraceRecorder trace;
     private int ops;
     private final boolean indexThem;
 
@@ -54,12 +62,17 @@ public class PropertyAddWorker implements Callable<int[]>
     private final Index<Node> nodeIndex;
     private final Index<Relationship> relIndex;
 
-    public PropertyAddWorker( GraphDatabaseService graphDb, Queue<Node> nodes,
-            int ops, boolean indexThem )
+    private final OperationLatencies latencies = new OperationLatencies();
+    private final OperationAllocations allocations = new OperationAllocations();
+    private final ThroughputSeries throughput = new ThroughputSeries();
+
+    public PropertyAddWorker( GraphDatabaseService graphDb, NodeIdPool nodes,
+            int ops, boolean indexThem, Random r, TraceRecorder trace )
     {
         this.graphDb = graphDb;
         this.nodes = nodes;
-        this.r = new Random();
+        this.r = r;
+        this.trace = trace;
         this.ops = ops;
         this.indexThem = indexThem;
         this.reads = 0;
@@ -70,17 +83,22 @@ public class PropertyAddWorker implements Callable<int[]>
     }
 
     @Override
-    public int[] call() throws Exception
+    public WorkerResult call() throws Exception
     {
         long time = System.currentTimeMillis();
         while ( ops-- > 0 )
         {
+            String operation = null;
+            long startBytes = OperationAllocations.threadAllocatedBytes();
+            long start = System.nanoTime();
+            TraceBatch batch = trace.begin();
             Transaction tx = graphDb.beginTx();
             try
             {
                 if ( r.nextBoolean() )
                 {
-                    addPropertyToNode();
+                    operation = ADD_NODE_PROPERTY;
+                    addPropertyToNode( batch );
                 }
                 else
                 {
@@ -91,37 +109,39 @@ public class PropertyAddWorker implements Callable<int[]>
             catch ( Exception e )
             {
                 tx.failure();
+                continue;
             }
             finally
             {
                 tx.finish();
             }
+            if ( operation != null )
+            {
+                allocations.record( operation, startBytes );
+                latencies.record( operation, start );
+                throughput.update( reads, writes );
+                trace.record( operation, batch );
+            }
         }
-        int[] result = new int[3];
-        result[0] = reads;
-        result[1] = writes;
-        result[2] = (int) ( System.currentTimeMillis() - time );
-        return result;
+        throughput.update( reads, writes );
+        return new WorkerResult( reads, writes, (int) ( System.currentTimeMillis() - time ), latencies, throughput,
+                allocations );
     }
 
-    private void addPropertyToNode()
+    private void addPropertyToNode( TraceBatch batch )
     {
-        int offset = r.nextInt( nodes.size() / 10 );
-        boolean createNew = r.nextBoolean();
         String propToAdd = null;
-        while ( offset-- > 0 )
+        if ( r.nextBoolean() )
         {
-            Node temp = nodes.poll();
-            if ( createNew && propToAdd == null
-                    && temp.getPropertyKeys().iterator().hasNext() )
+            // Reuse a property name from some other node
+            Node other = graphDb.getNodeById( nodes.randomId( r ) );
+            if ( other.getPropertyKeys().iterator().hasNext() )
             {
-                propToAdd = temp.getPropertyKeys().iterator().next();
+                propToAdd = other.getPropertyKeys().iterator().next();
                 reads += 1;
-                createNew = false; // we got a name, no need to look anymore
             }
-            nodes.offer( temp );
         }
-        Node toChange = nodes.poll();
+        Node toChange = graphDb.getNodeById( nodes.randomId( r ) );
         if ( propToAdd == null || toChange.hasProperty( propToAdd ) )
         {
             propToAdd = getRandomPropertyName();
@@ -132,33 +152,27 @@ public class PropertyAddWorker implements Callable<int[]>
         {
             nodeIndex.add( toChange, propToAdd, valueToSet );
         }
-        nodes.offer( toChange );
+        batch.add( TraceEntry.setNodeProperty( toChange.getId(), propToAdd, valueToSet, indexThem ) );
         writes += 1;
     }
 
     private void addPropertyToRelationship()
     {
-        int offset = r.nextInt( nodes.size() / 10 );
         boolean createNew = r.nextBoolean();
         String propToAdd = null;
-        Node temp = nodes.poll();
+        Node temp = graphDb.getNodeById( nodes.randomId( r ) );
         /*
-         *  We skip at least offset and then grab the first
-         *  node that has a relationship
+         *  Grab random nodes until we find one that has a relationship
          */
-        while ( offset-- > 0 || !temp.hasRelationship() )
+        while ( !temp.hasRelationship() )
         {
-            if ( !temp.hasRelationship() ) continue;
-            Relationship rel = temp.getRelationships().iterator().next();
-            if ( createNew && propToAdd == null
-                    && rel.getPropertyKeys().iterator().hasNext() )
-            {
-                propToAdd = rel.getPropertyKeys().iterator().next();
-                reads += 1;
-                createNew = false; // we got a name, no need to look anymore
-            }
-            nodes.offer( temp );
-            temp = nodes.poll();
+            temp = graphDb.getNodeById( nodes.randomId( r ) );
+        }
+        Relationship first = temp.getRelationships().iterator().next();
+        if ( createNew && first.getPropertyKeys().iterator().hasNext() )
+        {
+            propToAdd = first.getPropertyKeys().iterator().next();
+            reads += 1;
         }
         // temp now holds a node that will do
         if ( propToAdd == null )
@@ -166,12 +180,11 @@ public class PropertyAddWorker implements Callable<int[]>
             propToAdd = getRandomPropertyName();
         }
         /*
-         *  We have kind of a problem here. The node has been removed from
-         *  the queue so it is safe. But, its relationships are rooted also
-         *  to another node which might have its relationships removed
-         *  as we stand here, removing the relationship we will choose below.
-         *  I decide to completely disregard this and merrily throw an
-         *  exception. OK?
+         *  We have kind of a problem here. The node is still in the pool,
+         *  and both it and the other end of its relationships might be
+         *  deleted as we stand here, removing the relationship we will
+         *  choose below. I decide to completely disregard this and merrily
+         *  throw an exception. OK?
          */
         List<Relationship> thisNodesRels = new LinkedList<Relationship>();
         for ( Relationship rel : temp.getRelationships() )
@@ -187,12 +200,12 @@ public class PropertyAddWorker implements Callable<int[]>
         {
             relIndex.add( toChange, propToAdd, valueToSet );
         }
-        nodes.offer( temp );
     }
 
     private String getRandomPropertyName()
     {
-        return UUID.randomUUID().toString();
+        // From our own random, so seeded runs pick the same names
+        return new UUID( r.nextLong(), r.nextLong() ).toString();
     }
 
     private Object getRandomPropertyValue()
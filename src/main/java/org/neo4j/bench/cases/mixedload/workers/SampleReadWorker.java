@@ -19,35 +19,51 @@
  */
 package org.neo4j.bench.cases.mixedload.workers;
 
-import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.Callable;
 
+import org.neo4j.bench.cases.mixedload.trace.TraceBatch;
+import org.neo4j.bench.cases.mixedload.trace.TraceEntry;
+import org.neo4j.bench.cases.mixedload.trace.TraceRecorder;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
+import org.neo4j.bench.util.NodeIdPool;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.index.Index;
 
-public class SampleReadWorker implements Callable<int[]>
+public class SampleReadWorker implements Callable<WorkerResult>
 {
+    public static final String READ_RELATIONSHIPS = "Read relationships";
+    public static final String READ_NODE_PROPERTIES = "Read node properties";
 
     private final GraphDatabaseService graphDb;
     private int reads;
     private int ops;
-    private final Queue<Node> nodes;
+    private final NodeIdPool nodes;
     private final boolean readIndex;
+    private final Random r;
+    private final TraceRecorder trace;
 
     private final Index<Node> nodeIndex;
     private final Index<Relationship> relIndex;
 
-    public SampleReadWorker( GraphDatabaseService graphDb, Queue<Node> nodes,
-            int ops, boolean readIndex )
+    private final OperationLatencies latencies = new OperationLatencies();
+    private final OperationAllocations allocations = new OperationAllocations();
+    private final ThroughputSeries throughput = new ThroughputSeries();
+
+    public SampleReadWorker( GraphDatabaseService graphDb, NodeIdPool nodes,
+            int ops, boolean readIndex, Random r, TraceRecorder trace )
     {
         this.graphDb = graphDb;
         this.nodes = nodes;
         this.reads = 0;
         this.ops = ops;
         this.readIndex = readIndex;
+        this.r = r;
+        this.trace = trace;
 
         this.nodeIndex = graphDb.index().forNodes(
                 PropertyAddWorker.NodeIndexName );
@@ -56,22 +72,17 @@ public class SampleReadWorker implements Callable<int[]>
     }
 
     @Override
-    public int[] call() throws Exception
+    public WorkerResult call() throws Exception
     {
-        Random r = new Random();
         long time = System.currentTimeMillis();
         while ( ops-- > 0 )
         {
             try
             {
-                int getAt = r.nextInt( 10 );
-                while (getAt-- > 0)
-                {
-                    nodes.offer(nodes.poll());
-                }
-                Node read = nodes.poll();
-                // This is just the proxy, need to (possibly) load completely
-                read = graphDb.getNodeById( read.getId() );
+                long startBytes = OperationAllocations.threadAllocatedBytes();
+                long start = System.nanoTime();
+                TraceBatch batch = trace.begin();
+                Node read = graphDb.getNodeById( nodes.randomId( r ) );
 
                 reads += 1; // Possible re-read if out of cache/mmap
 
@@ -92,6 +103,11 @@ public class SampleReadWorker implements Callable<int[]>
                             // key/value
                         }
                     }
+                    allocations.record( READ_RELATIONSHIPS, startBytes );
+                    latencies.record( READ_RELATIONSHIPS, start );
+                    throughput.update( reads, 0 );
+                    batch.add( TraceEntry.readRelationships( read.getId(), readIndex ) );
+                    trace.record( READ_RELATIONSHIPS, batch );
                 }
                 else
                 {
@@ -105,8 +121,12 @@ public class SampleReadWorker implements Callable<int[]>
                         }
                         reads += 2; // the prop key and value
                     }
+                    allocations.record( READ_NODE_PROPERTIES, startBytes );
+                    latencies.record( READ_NODE_PROPERTIES, start );
+                    throughput.update( reads, 0 );
+                    batch.add( TraceEntry.readNodeProperties( read.getId(), readIndex ) );
+                    trace.record( READ_NODE_PROPERTIES, batch );
                 }
-                nodes.offer( read );
             }
             catch (Exception e)
             {
@@ -121,10 +141,8 @@ public class SampleReadWorker implements Callable<int[]>
                  */
             }
         }
-        int[] result = new int[3];
-        result[0] = reads;
-        result[1] = 0;
-        result[2] = reads == 0 ? 0 : (int) ( System.currentTimeMillis() - time );
-        return result;
+        throughput.update( reads, 0 );
+        return new WorkerResult( reads, 0, reads == 0 ? 0 : (int) ( System.currentTimeMillis() - time ), latencies, throughput,
+                allocations );
     }
 }
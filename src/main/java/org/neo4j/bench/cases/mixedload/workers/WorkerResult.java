@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.workers;
+
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.bench.metrics.ThroughputSeries;
+
+/**
+ * What a single mixed load worker did: how many reads and writes it
+ * performed, when it performed them, how long it took in total and the
+ * latency and allocation of each operation.
+ */
+public class WorkerResult
+{
+    private final int reads;
+    private final int writes;
+    private final int timeMillis;
+    private final OperationLatencies latencies;
+    private final ThroughputSeries throughput;
+    private final OperationAllocations allocations;
+
+    public WorkerResult( int reads, int writes, int timeMillis, OperationLatencies latencies,
+            ThroughputSeries throughput, OperationAllocations allocations )
+    {
+        this.reads = reads;
+        this.writes = writes;
+        this.timeMillis = timeMillis;
+        this.latencies = latencies;
+        this.throughput = throughput;
+        this.allocations = allocations;
+    }
+
+    public int getReads()
+    {
+        return reads;
+    }
+
+    public int getWrites()
+    {
+        return writes;
+    }
+
+    public int getTimeMillis()
+    {
+        return timeMillis;
+    }
+
+    public OperationLatencies getLatencies()
+    {
+        return latencies;
+    }
+
+    public ThroughputSeries getThroughput()
+    {
+        return throughput;
+    }
+
+    public OperationAllocations getAllocations()
+    {
+        return allocations;
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.scan;
+
+import static org.neo4j.bench.PrepopulatedGraphDatabaseFactory.create;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.OPERATION;
+import static org.neo4j.bench.domain.Units.RATIO;
+import static org.neo4j.bench.domain.Units.SECOND;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.bench.CacheMode;
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.Unit;
+import org.neo4j.bench.util.ClientThreads;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.impl.core.NodeManager;
+
+/**
+ * Scans the whole graph, nodes, their relationships and all properties, with
+ * an increasing number of threads. The node id space is cut into ranges that
+ * the threads take from a shared cursor, so a thread that gets dense ranges
+ * does not hold everyone else up. Ranges are sized from the id space and the
+ * number of threads, so there are always many more ranges than threads.
+ * Reports entities, nodes plus relationships, scanned per second and the
+ * speed-up over a single thread, which shows whether store reads scale with
+ * cores. Cineasts is small for this, a generated data set with millions of
+ * nodes gives the threads more to do.
+ */
+public class ParallelScanBenchCase implements BenchmarkCase
+{
+    /*
+     * Ranges of node ids each thread gets, on average. Enough that a thread
+     * that gets dense ranges doesn't leave the others idle at the end, few
+     * enough that taking a range off the cursor doesn't cost anything.
+     */
+    static final int RANGES_PER_THREAD = 16;
+    // Scans for each thread count, the best one is reported
+    private static final int SCANS_PER_STEP = 3;
+
+    private static final Unit ENTITIES_PER_SECOND = OPERATION.per( SECOND );
+
+    private final String dataSet;
+    private final int maxThreads;
+
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+
+    /**
+     * @param dataSet a {@link PrepopulatedGraphDatabaseFactory.DataSet} or the
+     *            name of a {@link org.neo4j.bench.generator.GeneratedDataSet}
+     * @param maxThreads the highest thread count to scan with, 0 for one
+     *            thread per core
+     */
+    public ParallelScanBenchCase( String dataSet, int maxThreads )
+    {
+        this.dataSet = dataSet;
+        this.maxThreads = maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void setUp()
+    {
+        dbWithStore = create( dataSet, CacheMode.WARM );
+    }
+
+    @Override
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        long highestNodeId = ( (GraphDatabaseAPI) dbWithStore.database ).getDependencyResolver()
+                .resolveDependency( NodeManager.class ).getHighestPossibleIdInUse( Node.class );
+
+        // Warm the caches, so the first step isn't the only one reading from disk
+        scan( 1, highestNodeId );
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        double singleThreaded = 0;
+        for ( int threads : ClientThreads.doublingUpTo( maxThreads ) )
+        {
+            double best = 0;
+            for ( int i = 0; i < SCANS_PER_STEP; i++ )
+            {
+                best = Math.max( best, scan( threads, highestNodeId ) );
+            }
+            if ( threads == 1 )
+            {
+                singleThreaded = best;
+            }
+            System.out.println( "Scan with " + threads + " threads: " + best + " entities/s" );
+
+            metrics.add( new CaseResult.Metric( "Scan throughput with " + threads + " threads", best,
+                    ENTITIES_PER_SECOND, /* track regression = */ true, BIGGER_IS_BETTER ) );
+            metrics.add( new CaseResult.Metric( "Scan speed-up with " + threads + " threads", best / singleThreaded,
+                    RATIO, BIGGER_IS_BETTER ) );
+        }
+        String name = getClass().getSimpleName();
+        return new CaseResult( dataSet.equals( PrepopulatedGraphDatabaseFactory.DataSet.CINEASTS.name() ) ? name
+                : name + "[" + dataSet + "]", metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    /**
+     * @return entities scanned per second
+     */
+    private double scan( int threads, long highestNodeId )
+    {
+        AtomicLong cursor = new AtomicLong();
+        long rangeSize = rangeSize( highestNodeId, threads );
+        ExecutorService executor = ClientThreads.newFixedThreadPool( threads );
+        try
+        {
+            long start = System.nanoTime();
+            List<Future<Long>> scanners = new ArrayList<Future<Long>>();
+            for ( int i = 0; i < threads; i++ )
+            {
+                scanners.add( executor.submit( new RangeScanner( dbWithStore.database, cursor, rangeSize, highestNodeId ) ) );
+            }
+            long entities = 0;
+            for ( Future<Long> scanner : scanners )
+            {
+                entities += scanner.get();
+            }
+            return entities * 1.0 / ( System.nanoTime() - start ) * TimeUnit.SECONDS.toNanos( 1 );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new RuntimeException( "Scan failed.", e.getCause() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return node ids to hand a thread at a time, so that each thread gets
+     *         about {@link #RANGES_PER_THREAD} ranges
+     */
+    static long rangeSize( long highestNodeId, int threads )
+    {
+        return Math.max( 1, ( highestNodeId + 1 ) / ( (long) threads * RANGES_PER_THREAD ) );
+    }
+
+    /**
+     * Takes ranges of node ids until there are none left, and reads every
+     * node in them with its outgoing relationships and all their properties.
+     * Relationships are only read from their start node, so each is counted
+     * once.
+     */
+    private static class RangeScanner implements Callable<Long>
+    {
+        private final GraphDatabaseService graphDb;
+        private final AtomicLong cursor;
+        private final long rangeSize;
+        private final long highestNodeId;
+
+        RangeScanner( GraphDatabaseService graphDb, AtomicLong cursor, long rangeSize, long highestNodeId )
+        {
+            this.graphDb = graphDb;
+            this.cursor = cursor;
+            this.rangeSize = rangeSize;
+            this.highestNodeId = highestNodeId;
+        }
+
+        @Override
+        public Long call() throws Exception
+        {
+            long entities = 0;
+            long from;
+            while ( ( from = cursor.getAndAdd( rangeSize ) ) <= highestNodeId )
+            {
+                long to = Math.min( from + rangeSize, highestNodeId + 1 );
+                for ( long id = from; id < to; id++ )
+                {
+                    Node node;
+                    try
+                    {
+                        node = graphDb.getNodeById( id );
+                    }
+                    catch ( NotFoundException e )
+                    {
+                        // Deleted, or never used
+                        continue;
+                    }
+                    entities++;
+                    for ( String key : node.getPropertyKeys() )
+                    {
+                        node.getProperty( key );
+                    }
+                    for ( Relationship rel : node.getRelationships( Direction.OUTGOING ) )
+                    {
+                        entities++;
+                        for ( String key : rel.getPropertyKeys() )
+                        {
+                            rel.getProperty( key );
+                        }
+                    }
+                }
+            }
+            return entities;
+        }
+    }
+}
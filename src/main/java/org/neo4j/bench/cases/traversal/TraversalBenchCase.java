@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.traversal;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.BYTE;
+import static org.neo4j.bench.domain.Units.COUNT;
+import static org.neo4j.bench.domain.Units.MILLISECOND;
+import static org.neo4j.bench.domain.Units.PATH;
+import static org.neo4j.bench.domain.Units.SECOND;
+import static org.neo4j.bench.domain.Units.TRAVERSAL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.CacheMode;
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.metrics.OperationAllocations;
+import org.neo4j.bench.util.RandomNodes;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.BranchState;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.Evaluators;
+import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.kernel.Traversal;
+import org.neo4j.kernel.Uniqueness;
+
+/**
+ * Runs a set of traversal descriptions, breadth and depth first, and one with
+ * its own {@link Evaluator} and {@link PathExpander} the way a recommendation
+ * would, from the same randomly picked start nodes. Each description runs
+ * with {@link Uniqueness#NODE_GLOBAL} and with
+ * {@link Uniqueness#RELATIONSHIP_PATH}, the first keeps a set of every node
+ * it has seen, the second walks every path and so sees a lot more of them.
+ *
+ * The descriptions follow relationships of any type, so they run on any data
+ * set, Cineasts as well as the generated graphs. Reports paths per second,
+ * time per traversal and the bytes allocated per traversal.
+ */
+public class TraversalBenchCase implements BenchmarkCase
+{
+    static final Uniqueness[] UNIQUENESS = { Uniqueness.NODE_GLOBAL, Uniqueness.RELATIONSHIP_PATH };
+
+    private static final int WARMUP_TRAVERSALS = 50;
+    private static final int TRAVERSALS = 500;
+    // Stop walking a traversal here, path uniqueness through a hub would otherwise never end
+    static final int MAX_PATHS_PER_TRAVERSAL = 100000;
+    // Relationships the recommendation expander follows from each node
+    static final int FAN_OUT = 20;
+
+    enum Description
+    {
+        BREADTH_FIRST( "Breadth first to depth 2" )
+        {
+            @Override
+            TraversalDescription describe()
+            {
+                return Traversal.description().breadthFirst().evaluator( Evaluators.toDepth( 2 ) );
+            }
+        },
+        DEPTH_FIRST( "Depth first to depth 3" )
+        {
+            @Override
+            TraversalDescription describe()
+            {
+                return Traversal.description().depthFirst().evaluator( Evaluators.toDepth( 3 ) );
+            }
+        },
+        RECOMMENDATION( "Second degree with capped fan-out" )
+        {
+            @Override
+            TraversalDescription describe()
+            {
+                return Traversal.description().breadthFirst().expand( new CappedExpander( FAN_OUT ) )
+                        .evaluator( SECOND_DEGREE );
+            }
+        };
+
+        private final String name;
+
+        private Description( String name )
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        abstract TraversalDescription describe();
+    }
+
+    /**
+     * Includes what is two relationships away, unless it is where the
+     * traversal started, and goes no further.
+     */
+    static final Evaluator SECOND_DEGREE = new Evaluator()
+    {
+        @Override
+        public Evaluation evaluate( Path path )
+        {
+            if ( path.length() < 2 )
+            {
+                return Evaluation.EXCLUDE_AND_CONTINUE;
+            }
+            return Evaluation.of( !path.endNode().equals( path.startNode() ), false );
+        }
+    };
+
+    /**
+     * Follows relationships of any type and direction, but no more than a
+     * fixed number from each node, the way a recommendation only looks at
+     * some of the neighbours of a popular node.
+     */
+    static class CappedExpander implements PathExpander<Void>
+    {
+        private final int fanOut;
+
+        CappedExpander( int fanOut )
+        {
+            this.fanOut = fanOut;
+        }
+
+        @Override
+        public Iterable<Relationship> expand( Path path, BranchState<Void> state )
+        {
+            List<Relationship> expanded = new ArrayList<Relationship>( fanOut );
+            for ( Relationship relationship : path.endNode().getRelationships() )
+            {
+                if ( expanded.size() == fanOut )
+                {
+                    break;
+                }
+                expanded.add( relationship );
+            }
+            return expanded;
+        }
+
+        @Override
+        public PathExpander<Void> reverse()
+        {
+            return this;
+        }
+    }
+
+    private final String dataSet;
+    private final long seed;
+
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+
+    /**
+     * @param dataSet a {@link PrepopulatedGraphDatabaseFactory.DataSet} or the
+     *            name of a {@link org.neo4j.bench.generator.GeneratedDataSet}
+     */
+    public TraversalBenchCase( String dataSet, long seed )
+    {
+        this.dataSet = dataSet;
+        this.seed = seed;
+    }
+
+    @Override
+    public void setUp()
+    {
+        dbWithStore = PrepopulatedGraphDatabaseFactory.create( dataSet, CacheMode.WARM );
+    }
+
+    @Override
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        // Every description and uniqueness starts from the same nodes
+        Node[] startNodes = RandomNodes.pick( dbWithStore.database, WARMUP_TRAVERSALS + TRAVERSALS, new Random( seed ) );
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        for ( Description description : Description.values() )
+        {
+            for ( Uniqueness uniqueness : UNIQUENESS )
+            {
+                benchmarkTraversal( description.getName() + ", " + uniqueness.name(),
+                        description.describe().uniqueness( uniqueness ), startNodes, metrics );
+            }
+        }
+
+        String name = getClass().getSimpleName();
+        return new CaseResult( dataSet.equals( PrepopulatedGraphDatabaseFactory.DataSet.CINEASTS.name() ) ? name
+                : name + "[" + dataSet + "]", metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    private void benchmarkTraversal( String name, TraversalDescription traversal, Node[] startNodes,
+            List<CaseResult.Metric> metrics )
+    {
+        for ( int i = 0; i < WARMUP_TRAVERSALS; i++ )
+        {
+            traverse( traversal, startNodes[i] );
+        }
+
+        long paths = 0;
+        long startBytes = OperationAllocations.threadAllocatedBytes();
+        long start = System.nanoTime();
+        for ( int i = WARMUP_TRAVERSALS; i < startNodes.length; i++ )
+        {
+            paths += traverse( traversal, startNodes[i] );
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = OperationAllocations.threadAllocatedBytes() - startBytes;
+
+        double pathsPerSecond = paths * 1.0 / nanos * TimeUnit.SECONDS.toNanos( 1 );
+        System.out.println( name + ": " + pathsPerSecond + " paths/s, " + paths / TRAVERSALS + " paths per traversal" );
+        metrics.add( new CaseResult.Metric( "Paths per second for: " + name, pathsPerSecond, PATH.per( SECOND ),
+                /* track regression = */ true, BIGGER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "Time per traversal for: " + name,
+                nanos / (double) TimeUnit.MILLISECONDS.toNanos( 1 ) / TRAVERSALS, MILLISECOND, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( "Paths per traversal for: " + name, paths / (double) TRAVERSALS, COUNT,
+                BIGGER_IS_BETTER ) );
+        if ( startBytes >= 0 )
+        {
+            metrics.add( new CaseResult.Metric( "Allocation per traversal for: " + name, allocated / (double) TRAVERSALS,
+                    BYTE.per( TRAVERSAL ), /* track regression = */ true, SMALLER_IS_BETTER ) );
+        }
+    }
+
+    /**
+     * @return how many paths the traversal returned, at most
+     *         {@link #MAX_PATHS_PER_TRAVERSAL}
+     */
+    private static long traverse( TraversalDescription traversal, Node start )
+    {
+        long paths = 0;
+        for ( Path path : traversal.traverse( start ) )
+        {
+            if ( ++paths == MAX_PATHS_PER_TRAVERSAL )
+            {
+                break;
+            }
+        }
+        return paths;
+    }
+}
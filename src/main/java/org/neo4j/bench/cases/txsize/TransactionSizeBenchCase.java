@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.txsize;
+
+import static org.neo4j.bench.PrepopulatedGraphDatabaseFactory.create;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.BIGGER_IS_BETTER;
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.MEGABYTE;
+import static org.neo4j.bench.domain.Units.OPERATION;
+import static org.neo4j.bench.domain.Units.SECOND;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.neo4j.bench.GraphDatabaseAndUnderlyingStore;
+import org.neo4j.bench.PrepopulatedGraphDatabaseFactory;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.metrics.OperationLatencies;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * Writes the same kind of operation, a node with a property linked to the
+ * node created before it, with a range of transaction sizes. For each size
+ * it reports write throughput, how long commits take and how much heap the
+ * transaction state pushed usage up to. Small transactions show the cost of
+ * commits, large ones the cost of keeping transaction state around.
+ */
+public class TransactionSizeBenchCase implements BenchmarkCase
+{
+    public static final int[] DEFAULT_SIZES = { 1, 10, 100, 1000, 10000, 100000 };
+
+    private static final RelationshipType NEXT = DynamicRelationshipType.withName( "NEXT" );
+
+    // Operations per transaction, for each step of the sweep
+    private final int[] sizes;
+    // How long to keep committing transactions of each size
+    private final long secondsPerSize;
+    // Full transactions to run for each size, however long they take
+    private static final int MIN_TRANSACTIONS = 3;
+
+    private GraphDatabaseAndUnderlyingStore dbWithStore;
+
+    public TransactionSizeBenchCase( long secondsPerSize )
+    {
+        this( DEFAULT_SIZES, secondsPerSize );
+    }
+
+    public TransactionSizeBenchCase( int[] sizes, long secondsPerSize )
+    {
+        this.sizes = sizes;
+        this.secondsPerSize = secondsPerSize;
+    }
+
+    @Override
+    public void setUp()
+    {
+        dbWithStore = create( PrepopulatedGraphDatabaseFactory.DataSet.EMPTY );
+    }
+
+    @Override
+    public void tearDown()
+    {
+        dbWithStore.tearDown();
+    }
+
+    @Override
+    public CaseResult run()
+    {
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        for ( int size : sizes )
+        {
+            metrics.addAll( sweepStep( size ) );
+        }
+        return new CaseResult( getClass().getSimpleName(), metrics.toArray( new CaseResult.Metric[metrics.size()] ) );
+    }
+
+    private List<CaseResult.Metric> sweepStep( int size )
+    {
+        Histogram commits = OperationLatencies.newHistogram();
+        long operations = 0;
+        int transactions = 0;
+
+        // Start every size from the same heap, then track how far it grows
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        for ( MemoryPoolMXBean pool : heapPools )
+        {
+            pool.resetPeakUsage();
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos( secondsPerSize );
+        while ( transactions < MIN_TRANSACTIONS || System.nanoTime() < deadline )
+        {
+            Transaction tx = dbWithStore.database.beginTx();
+            try
+            {
+                Node previous = null;
+                for ( int i = 0; i < size; i++ )
+                {
+                    Node node = dbWithStore.database.createNode();
+                    node.setProperty( "name", "node-" + i );
+                    if ( previous != null )
+                    {
+                        previous.createRelationshipTo( node, NEXT );
+                    }
+                    previous = node;
+                }
+                tx.success();
+            }
+            finally
+            {
+                long commitStart = System.nanoTime();
+                tx.finish();
+                commits.recordValue( OperationLatencies.clamp(
+                        TimeUnit.NANOSECONDS.toMicros( System.nanoTime() - commitStart ) ) );
+            }
+            operations += size;
+            transactions++;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long peakHeap = 0;
+        for ( MemoryPoolMXBean pool : heapPools )
+        {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        System.out.println( "Transaction size " + size + ": " + transactions + " transactions, "
+                            + operations + " operations in " + TimeUnit.NANOSECONDS.toMillis( elapsed ) + "ms" );
+
+        String prefix = "Tx size " + size + " ";
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        metrics.add( new CaseResult.Metric( prefix + "throughput", operations * 1.0 / elapsed * TimeUnit.SECONDS.toNanos( 1 ),
+                OPERATION.per( SECOND ), /* track regression = */ true, BIGGER_IS_BETTER ) );
+        metrics.addAll( OperationLatencies.percentileMetrics( prefix + "commit latency", commits ) );
+        metrics.add( new CaseResult.Metric( prefix + "heap high water mark", peakHeap / ( 1024.0 * 1024.0 ),
+                MEGABYTE, SMALLER_IS_BETTER ) );
+        return metrics;
+    }
+
+    /**
+     * @return the heap pools that hold long lived objects. Young pools fill up
+     *         and empty again between collections whatever the transaction
+     *         size, so their peaks say nothing. These are also the pools
+     *         that support usage thresholds.
+     */
+    private static List<MemoryPoolMXBean> heapPools()
+    {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+        for ( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+        {
+            if ( pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported() )
+            {
+                heapPools.add( pool );
+            }
+        }
+        return heapPools;
+    }
+}
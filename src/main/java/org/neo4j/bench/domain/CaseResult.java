@@ -26,6 +26,8 @@ import static org.neo4j.bench.domain.Units.MILLISECOND;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.codehaus.jackson.annotate.JsonProperty;
 
@@ -184,6 +186,7 @@ public class CaseResult
 
     private String caseName;
     private List<Metric> metrics;
+    @JsonProperty private Map<String, TimeSeries> timeSeries = new TreeMap<String, TimeSeries>();
 
     public CaseResult( @JsonProperty("caseName") String caseName)
     {
@@ -194,7 +197,7 @@ public class CaseResult
     public CaseResult( String caseName, Metric ... metrics )
     {
         this.caseName = caseName;
-        this.metrics = Arrays.asList(metrics);
+        this.metrics = new ArrayList<Metric>( Arrays.asList( metrics ) );
     }
 
     public String getCaseName()
@@ -207,6 +210,32 @@ public class CaseResult
         return metrics;
     }
 
+    public void addMetric( Metric metric )
+    {
+        metrics.add( metric );
+    }
+
+    public Map<String, TimeSeries> getTimeSeries()
+    {
+        return timeSeries;
+    }
+
+    /**
+     * @return a copy of this result reported under another case name
+     */
+    public CaseResult withCaseName( String caseName )
+    {
+        CaseResult renamed = new CaseResult( caseName );
+        renamed.metrics.addAll( metrics );
+        renamed.timeSeries.putAll( timeSeries );
+        return renamed;
+    }
+
+    public void addTimeSeries( String name, TimeSeries series )
+    {
+        timeSeries.put( name, series );
+    }
+
     public boolean containsMetric( String metricName )
     {
         return getMetric(metricName) != null;
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Values sampled at a fixed interval over the course of a case, kept with the
+ * {@link CaseResult} so dips can be looked at after the fact. Time series are
+ * not checked for regression.
+ */
+public class TimeSeries
+{
+    // When the first value was sampled, in milliseconds since the epoch
+    @JsonProperty private long startMillis;
+    @JsonProperty private long intervalMillis;
+    @JsonProperty private Unit unit;
+    @JsonProperty private List<Double> values = new ArrayList<Double>();
+
+    private TimeSeries(){}
+
+    public TimeSeries( long startMillis, long intervalMillis, Unit unit, List<Double> values )
+    {
+        this.startMillis = startMillis;
+        this.intervalMillis = intervalMillis;
+        this.unit = unit;
+        this.values = new ArrayList<Double>( values );
+    }
+
+    public long getStartMillis()
+    {
+        return startMillis;
+    }
+
+    public long getIntervalMillis()
+    {
+        return intervalMillis;
+    }
+
+    public List<Double> getValues()
+    {
+        return Collections.unmodifiableList( values );
+    }
+}
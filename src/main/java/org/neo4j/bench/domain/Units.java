@@ -35,13 +35,50 @@ public final class Units
      */
     public static Unit CORE_API_READ = new Unit( "Core API read" );
 
+    /**
+     * One execution of a Cypher query, including exhausting its result.
+     */
+    public static Unit CYPHER_QUERY = new Unit( "Cypher query" );
+
+    /**
+     * One run of a traversal description from a start node.
+     */
+    public static Unit TRAVERSAL = new Unit( "Traversal" );
+
+    /**
+     * A path returned by a traversal.
+     */
+    public static Unit PATH = new Unit( "Path" );
+
+    /**
+     * A single operation, whatever it does, when that is what is counted.
+     */
+    public static Unit OPERATION = new Unit( "Operation" );
+
     // Time units
 
     public static Unit SECOND = new Unit("s");
     public static Unit MILLISECOND = new Unit("ms");
+    public static Unit MICROSECOND = new Unit("us");
+
+    // Size units
+
+    public static Unit BYTE = new Unit("B");
+    public static Unit MEGABYTE = new Unit("MB");
+    public static Unit GIGABYTE = new Unit("GB");
 
     // Other
 
+    /**
+     * A plain count of something, such as collections or threads.
+     */
+    public static Unit COUNT = new Unit( "count" );
+
+    /**
+     * One value relative to another, such as a speed-up.
+     */
+    public static Unit RATIO = new Unit( "ratio" );
+
     public static Unit UNKNOWN = new Unit( "unknown" );
 
     private Units(){};
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.generator;
+
+import static org.neo4j.kernel.impl.util.FileUtils.deleteRecursively;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+
+/**
+ * A store generated by a {@link GraphGenerator}, at a given scale and with a
+ * given seed. Generated stores are written with the batch inserter and kept
+ * in a cache directory, keyed by generator, scale and seed, so the same graph
+ * is only ever generated once per machine and runs need no network access.
+ */
+public class GeneratedDataSet
+{
+    public static final File DEFAULT_CACHE = new File( "../databases/generated" );
+
+    // Written once a store is fully generated, a store without it was interrupted
+    static final String COMPLETE_MARKER = "generated.complete";
+
+    private static final Map<String, Object> NO_PROPERTIES = Collections.emptyMap();
+    private static final long PRINT_EVERY = 10000000;
+    private static final Pattern NAME = Pattern.compile( "(.+)-(\\d+)-seed(-?\\d+)" );
+
+    private final GraphGenerator generator;
+    private final long relationships;
+    private final long seed;
+
+    /**
+     * @param relationships about how many relationships the graph should have
+     */
+    public GeneratedDataSet( GraphGenerator generator, long relationships, long seed )
+    {
+        this.generator = generator;
+        this.relationships = relationships;
+        this.seed = seed;
+    }
+
+    public String getName()
+    {
+        return generator.getName() + "-" + relationships + "-seed" + seed;
+    }
+
+    public GraphGenerator getGenerator()
+    {
+        return generator;
+    }
+
+    public long getRelationships()
+    {
+        return relationships;
+    }
+
+    /**
+     * @return whether the name is that of a generated data set, which doesn't
+     *         say that the generator exists
+     */
+    public static boolean isGenerated( String name )
+    {
+        return NAME.matcher( name ).matches();
+    }
+
+    /**
+     * @param name a name as given by {@link #getName()}, such as
+     *            power-law-1000000-seed1
+     */
+    public static GeneratedDataSet parse( String name )
+    {
+        Matcher matcher = NAME.matcher( name );
+        if ( !matcher.matches() )
+        {
+            throw new IllegalArgumentException( "'" + name + "' is not a generated data set, expected <generator>-<relationships>-seed<seed>." );
+        }
+        return new GeneratedDataSet( GraphGenerator.fromName( matcher.group( 1 ) ),
+                Long.parseLong( matcher.group( 2 ) ), Long.parseLong( matcher.group( 3 ) ) );
+    }
+
+    /**
+     * @return the generated store in the default cache, generating it first if
+     *         it isn't there yet
+     */
+    public File getStore()
+    {
+        return getStore( DEFAULT_CACHE );
+    }
+
+    /**
+     * @return the generated store in the given cache, generating it first if
+     *         it isn't there yet
+     */
+    public File getStore( File cache )
+    {
+        File store = new File( cache, getName() );
+        if ( new File( store, COMPLETE_MARKER ).exists() )
+        {
+            return store;
+        }
+
+        try
+        {
+            File generating = new File( cache, getName() + ".generating" );
+            // Left over from a generation that didn't finish
+            for ( File unfinished : new File[] { generating, store } )
+            {
+                if ( unfinished.exists() )
+                {
+                    deleteRecursively( unfinished );
+                }
+            }
+            generating.mkdirs();
+
+            System.out.println( "Generating " + getName() + " into " + store.getAbsolutePath() );
+            long start = System.currentTimeMillis();
+            generate( generating );
+            System.out.println( "Generated " + getName() + " in " + ( System.currentTimeMillis() - start ) + "ms" );
+
+            if ( !generating.renameTo( store ) )
+            {
+                throw new IOException( "Unable to move '" + generating.getAbsolutePath() + "' to '"
+                                       + store.getAbsolutePath() + "'." );
+            }
+            new File( store, COMPLETE_MARKER ).createNewFile();
+            return store;
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to generate " + getName() + ".", e );
+        }
+    }
+
+    private void generate( File location )
+    {
+        final BatchInserter inserter = BatchInserters.inserter( location.getAbsolutePath() );
+        try
+        {
+            generator.generate( new GraphGenerator.Output()
+            {
+                private long created;
+
+                @Override
+                public void node( long node )
+                {
+                    // Node 0 is the reference node, generated nodes start at 1
+                    inserter.createNode( node + 1, NO_PROPERTIES );
+                }
+
+                @Override
+                public void relationship( long from, long to, RelationshipType type )
+                {
+                    inserter.createRelationship( from + 1, to + 1, type, NO_PROPERTIES );
+                    if ( ++created % PRINT_EVERY == 0 )
+                    {
+                        System.out.println( "  " + created + " relationships" );
+                    }
+                }
+            }, relationships, new Random( seed ) );
+        }
+        finally
+        {
+            inserter.shutdown();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName();
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.generator;
+
+import java.util.Random;
+
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * Deterministic generators of synthetic graphs. Given the same number of
+ * relationships and the same random source, a generator emits the same graph,
+ * node for node and relationship for relationship, on any JVM.
+ *
+ * Generators stream the graph out as they go and keep nothing of it in
+ * memory, so they scale to hundreds of millions of relationships. Nodes are
+ * numbered from 0 and are all emitted before any relationship that uses them.
+ */
+public enum GraphGenerator
+{
+    /**
+     * A social network, where everyone knows {@link #FRIENDS} others and a
+     * few are known by very many. Who someone knows is drawn with a strong
+     * skew towards the lowest numbered nodes, which gives the in-degrees a
+     * power-law like long tail.
+     */
+    POWER_LAW( "power-law", "KNOWS" )
+    {
+        @Override
+        void generate( Output out, long relationships, Random r )
+        {
+            long nodes = Math.max( 2, relationships / FRIENDS );
+            emitNodes( out, nodes );
+            for ( long node = 0; node < nodes; node++ )
+            {
+                for ( int i = 0; i < FRIENDS; i++ )
+                {
+                    long friend = skewed( r, nodes );
+                    out.relationship( node, friend == node ? ( friend + 1 ) % nodes : friend, type );
+                }
+            }
+        }
+    },
+
+    /**
+     * A complete tree where every node has {@link #CHILDREN} children, such
+     * as a file system or an organisation chart.
+     */
+    TREE( "tree", "CHILD" )
+    {
+        @Override
+        void generate( Output out, long relationships, Random r )
+        {
+            long nodes = relationships + 1;
+            emitNodes( out, nodes );
+            for ( long node = 1; node < nodes; node++ )
+            {
+                out.relationship( ( node - 1 ) / CHILDREN, node, type );
+            }
+        }
+    },
+
+    /**
+     * A square grid, where each node is next to the node to its right and the
+     * node below it, such as a road network.
+     */
+    GRID( "grid", "NEXT_TO" )
+    {
+        @Override
+        void generate( Output out, long relationships, Random r )
+        {
+            long side = gridSide( relationships );
+            emitNodes( out, side * side );
+            for ( long row = 0; row < side; row++ )
+            {
+                for ( long column = 0; column < side; column++ )
+                {
+                    long node = row * side + column;
+                    if ( column + 1 < side )
+                    {
+                        out.relationship( node, node + 1, type );
+                    }
+                    if ( row + 1 < side )
+                    {
+                        out.relationship( node, node + side, type );
+                    }
+                }
+            }
+        }
+    },
+
+    /**
+     * Users who each like {@link #LIKES} items, with one item for every ten
+     * users and a few items far more popular than the rest. Users are the
+     * lowest numbered nodes, items come after them.
+     */
+    BIPARTITE( "bipartite", "LIKES" )
+    {
+        @Override
+        void generate( Output out, long relationships, Random r )
+        {
+            long users = Math.max( 1, relationships / LIKES );
+            long items = Math.max( 1, users / 10 );
+            emitNodes( out, users + items );
+            for ( long user = 0; user < users; user++ )
+            {
+                for ( int i = 0; i < LIKES; i++ )
+                {
+                    out.relationship( user, users + skewed( r, items ), type );
+                }
+            }
+        }
+    };
+
+    /**
+     * Where a generator puts the graph it generates.
+     */
+    public interface Output
+    {
+        void node( long node );
+
+        void relationship( long from, long to, RelationshipType type );
+    }
+
+    static final int FRIENDS = 10;
+    static final int CHILDREN = 4;
+    static final int LIKES = 10;
+
+    // The higher, the more of the relationships go to the few lowest numbered nodes
+    private static final double SKEW = 3;
+
+    private final String name;
+    protected final RelationshipType type;
+
+    private GraphGenerator( String name, String type )
+    {
+        this.name = name;
+        this.type = DynamicRelationshipType.withName( type );
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return the number of nodes along each side of a {@link #GRID} with
+     *         about the given number of relationships. The node in row r and
+     *         column c is number r * side + c.
+     */
+    public static long gridSide( long relationships )
+    {
+        return Math.max( 2, (long) Math.ceil( Math.sqrt( relationships / 2.0 ) ) );
+    }
+
+    public static GraphGenerator fromName( String name )
+    {
+        for ( GraphGenerator generator : values() )
+        {
+            if ( generator.name.equals( name ) )
+            {
+                return generator;
+            }
+        }
+        throw new IllegalArgumentException( "Unknown graph generator '" + name + "'." );
+    }
+
+    /**
+     * @param relationships about how many relationships to generate, the
+     *            shape of the graph decides exactly how many
+     */
+    abstract void generate( Output out, long relationships, Random r );
+
+    private static void emitNodes( Output out, long nodes )
+    {
+        for ( long node = 0; node < nodes; node++ )
+        {
+            out.node( node );
+        }
+    }
+
+    /**
+     * @return a node in [0, nodes), far more likely a low numbered one. Uses
+     *         StrictMath so the graph is the same on every JVM.
+     */
+    private static long skewed( Random r, long nodes )
+    {
+        return Math.min( nodes - 1, (long) ( nodes * StrictMath.pow( r.nextDouble(), SKEW ) ) );
+    }
+}
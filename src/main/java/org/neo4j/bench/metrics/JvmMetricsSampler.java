@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.management.GcInfo;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.Unit;
+import org.neo4j.bench.domain.Units;
+
+/**
+ * Samples the JVM's management beans when a case starts and when it stops,
+ * and turns the difference into metrics - how much the JVM collected,
+ * compiled and stopped while the case ran. None of these are tracked for
+ * regression, they are there to tell whether a drop in throughput came from
+ * the database or from the JVM underneath it.
+ *
+ * The management beans only keep totals, so the longest collection is found
+ * by polling the last collection of each collector while the case runs.
+ * Collections that start and finish between two polls are counted and
+ * timed, but may be missed by the longest collection.
+ */
+public class JvmMetricsSampler
+{
+    public static final String PREFIX = "JVM: ";
+    // What the JVM did while the case set up, reported apart from what it did while measured
+    public static final String SETUP_PREFIX = "Setup JVM: ";
+    private static final long POLL_MILLIS = 50;
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private final Object hotspotRuntime = hotspotRuntime();
+    private final String prefix;
+
+    private final long gcCountBefore;
+    private final long gcTimeBefore;
+    private final long compilationTimeBefore;
+    private final long safepointCountBefore;
+    private final long safepointTimeBefore;
+    private final long classesLoadedBefore;
+
+    private final Map<String, Long> lastCollectionIds = new HashMap<String, Long>();
+    private long longestCollection;
+    private final Thread poller;
+    private volatile boolean running = true;
+
+    private JvmMetricsSampler( String prefix )
+    {
+        this.prefix = prefix;
+        threads.resetPeakThreadCount();
+        gcCountBefore = gcCount();
+        gcTimeBefore = gcTime();
+        compilationTimeBefore = compilationTime();
+        safepointCountBefore = hotspotCounter( "getSafepointCount" );
+        safepointTimeBefore = hotspotCounter( "getTotalSafepointTime" );
+        classesLoadedBefore = classLoading.getTotalLoadedClassCount();
+
+        // Collections from before the case started are not the case's own
+        pollCollections();
+        longestCollection = 0;
+
+        poller = new Thread( "JVM metrics sampler" )
+        {
+            @Override
+            public void run()
+            {
+                while ( running )
+                {
+                    pollCollections();
+                    try
+                    {
+                        Thread.sleep( POLL_MILLIS );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        return;
+                    }
+                }
+            }
+        };
+        poller.setDaemon( true );
+        poller.start();
+    }
+
+    public static JvmMetricsSampler start()
+    {
+        return start( PREFIX );
+    }
+
+    /**
+     * @param prefix to put in front of the name of each metric
+     */
+    public static JvmMetricsSampler start( String prefix )
+    {
+        return new JvmMetricsSampler( prefix );
+    }
+
+    /**
+     * @return what the JVM did since {@link #start()}, as metrics
+     */
+    public List<CaseResult.Metric> stop()
+    {
+        running = false;
+        poller.interrupt();
+        try
+        {
+            poller.join();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        pollCollections();
+
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        metrics.add( metric( "GC count", gcCount() - gcCountBefore, Units.COUNT ) );
+        metrics.add( metric( "GC time", gcTime() - gcTimeBefore, Units.MILLISECOND ) );
+        metrics.add( metric( "GC longest collection", longestCollection, Units.MILLISECOND ) );
+        if ( compilationTimeBefore != -1 )
+        {
+            metrics.add( metric( "JIT compilation time", compilationTime() - compilationTimeBefore, Units.MILLISECOND ) );
+        }
+        if ( safepointCountBefore != -1 && safepointTimeBefore != -1 )
+        {
+            metrics.add( metric( "Safepoint count", hotspotCounter( "getSafepointCount" ) - safepointCountBefore,
+                    Units.COUNT ) );
+            metrics.add( metric( "Safepoint time", hotspotCounter( "getTotalSafepointTime" ) - safepointTimeBefore,
+                    Units.MILLISECOND ) );
+        }
+        metrics.add( metric( "Peak thread count", threads.getPeakThreadCount(), Units.COUNT ) );
+        metrics.add( metric( "Classes loaded", classLoading.getTotalLoadedClassCount() - classesLoadedBefore,
+                Units.COUNT ) );
+        return metrics;
+    }
+
+    private CaseResult.Metric metric( String name, double value, Unit unit )
+    {
+        return new CaseResult.Metric( prefix + name, value, unit, SMALLER_IS_BETTER );
+    }
+
+    private synchronized void pollCollections()
+    {
+        for ( GarbageCollectorMXBean collector : collectors )
+        {
+            if ( !( collector instanceof com.sun.management.GarbageCollectorMXBean ) )
+            {
+                continue;
+            }
+            GcInfo last = ( (com.sun.management.GarbageCollectorMXBean) collector ).getLastGcInfo();
+            if ( last == null )
+            {
+                continue;
+            }
+            Long lastSeen = lastCollectionIds.put( collector.getName(), last.getId() );
+            if ( lastSeen == null || lastSeen != last.getId() )
+            {
+                longestCollection = Math.max( longestCollection, last.getDuration() );
+            }
+        }
+    }
+
+    private long gcCount()
+    {
+        long count = 0;
+        for ( GarbageCollectorMXBean collector : collectors )
+        {
+            count += Math.max( 0, collector.getCollectionCount() );
+        }
+        return count;
+    }
+
+    private long gcTime()
+    {
+        long time = 0;
+        for ( GarbageCollectorMXBean collector : collectors )
+        {
+            time += Math.max( 0, collector.getCollectionTime() );
+        }
+        return time;
+    }
+
+    private long compilationTime()
+    {
+        if ( compilation == null || !compilation.isCompilationTimeMonitoringSupported() )
+        {
+            return -1;
+        }
+        return compilation.getTotalCompilationTime();
+    }
+
+    /**
+     * Safepoint counters are only exposed by HotSpot's internal runtime bean,
+     * which newer JVMs do not let us reach without opening up their modules.
+     * Where it can't be reached the safepoint metrics are left out.
+     */
+    private static Object hotspotRuntime()
+    {
+        try
+        {
+            Method getter = Class.forName( "sun.management.ManagementFactoryHelper" )
+                    .getMethod( "getHotspotRuntimeMBean" );
+            return getter.invoke( null );
+        }
+        catch ( Throwable e )
+        {
+            return null;
+        }
+    }
+
+    private long hotspotCounter( String getterName )
+    {
+        if ( hotspotRuntime == null )
+        {
+            return -1;
+        }
+        try
+        {
+            Method getter = hotspotRuntime.getClass().getMethod( getterName );
+            getter.setAccessible( true );
+            return ( (Number) getter.invoke( hotspotRuntime ) ).longValue();
+        }
+        catch ( Throwable e )
+        {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.Units;
+
+/**
+ * Bytes allocated per operation, one average per named operation type,
+ * measured with the JVM's per thread allocation counter around the
+ * operation. Allocation is a leading indicator of GC trouble, and unlike
+ * throughput it barely moves between runs, so a change that makes an
+ * operation produce more garbage shows up here before it shows up anywhere
+ * else.
+ *
+ * The counter is only available on JVMs that support it, HotSpot since 6u25,
+ * and not for virtual threads. Where it isn't, nothing is recorded.
+ *
+ * This is not thread safe - each worker keeps its own instance, and the
+ * instances are merged with {@link #add(OperationAllocations)}, the same way
+ * as {@link OperationLatencies}.
+ */
+public class OperationAllocations
+{
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCountingThreads();
+
+    private final Map<String, long[]> bytesAndCounts = new TreeMap<String, long[]>();
+
+    /**
+     * @return bytes allocated by the current thread so far, or -1 if that
+     *         can't be told
+     */
+    public static long threadAllocatedBytes()
+    {
+        if ( THREADS == null )
+        {
+            return -1;
+        }
+        return THREADS.getThreadAllocatedBytes( Thread.currentThread().getId() );
+    }
+
+    /**
+     * Record what the current thread allocated since startBytes, as given by
+     * {@link #threadAllocatedBytes()}.
+     */
+    public void record( String operation, long startBytes )
+    {
+        long endBytes = threadAllocatedBytes();
+        if ( startBytes < 0 || endBytes < startBytes )
+        {
+            return;
+        }
+        recordBytes( operation, endBytes - startBytes, 1 );
+    }
+
+    public void recordBytes( String operation, long bytes, long operations )
+    {
+        long[] totals = bytesAndCounts.get( operation );
+        if ( totals == null )
+        {
+            totals = new long[2];
+            bytesAndCounts.put( operation, totals );
+        }
+        totals[0] += bytes;
+        totals[1] += operations;
+    }
+
+    public void add( OperationAllocations other )
+    {
+        for ( Map.Entry<String, long[]> entry : other.bytesAndCounts.entrySet() )
+        {
+            recordBytes( entry.getKey(), entry.getValue()[0], entry.getValue()[1] );
+        }
+    }
+
+    public double bytesPerOperation( String operation )
+    {
+        long[] totals = bytesAndCounts.get( operation );
+        return totals == null || totals[1] == 0 ? 0 : totals[0] / (double) totals[1];
+    }
+
+    public boolean isEmpty()
+    {
+        return bytesAndCounts.isEmpty();
+    }
+
+    /**
+     * @return average bytes allocated per operation, for each operation type,
+     *         all tracked for regression
+     */
+    public List<CaseResult.Metric> toMetrics()
+    {
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        for ( String operation : bytesAndCounts.keySet() )
+        {
+            metrics.add( new CaseResult.Metric( operation + " allocation", bytesPerOperation( operation ),
+                    Units.BYTE.per( Units.OPERATION ), /* track regression = */ true, SMALLER_IS_BETTER ) );
+        }
+        return metrics;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCountingThreads()
+    {
+        try
+        {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if ( !( threads instanceof com.sun.management.ThreadMXBean ) )
+            {
+                return null;
+            }
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if ( !sunThreads.isThreadAllocatedMemorySupported() )
+            {
+                return null;
+            }
+            sunThreads.setThreadAllocatedMemoryEnabled( true );
+            return sunThreads;
+        }
+        catch ( LinkageError e )
+        {
+            // Not a JVM with the com.sun.management extensions
+            return null;
+        }
+    }
+}
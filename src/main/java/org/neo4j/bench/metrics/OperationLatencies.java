@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+import static org.neo4j.bench.domain.Units.MICROSECOND;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.neo4j.bench.domain.CaseResult;
+
+/**
+ * Latency histograms, one per named operation type. Values are recorded in
+ * microseconds.
+ *
+ * This is not thread safe - each worker keeps its own instance, and the
+ * instances are merged with {@link #add(OperationLatencies)} once the workers
+ * are done.
+ */
+public class OperationLatencies
+{
+    public static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros( 1 );
+    public static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Histogram> histograms = new TreeMap<String, Histogram>();
+
+    /**
+     * Record the time from startNanos, as given by {@link System#nanoTime()},
+     * until now.
+     */
+    public void record( String operation, long startNanos )
+    {
+        recordNanos( operation, System.nanoTime() - startNanos );
+    }
+
+    public void recordNanos( String operation, long nanos )
+    {
+        histogramFor( operation ).recordValue( clamp( TimeUnit.NANOSECONDS.toMicros( nanos ) ) );
+    }
+
+    public void add( OperationLatencies other )
+    {
+        for ( Map.Entry<String, Histogram> entry : other.histograms.entrySet() )
+        {
+            histogramFor( entry.getKey() ).add( entry.getValue() );
+        }
+    }
+
+    public Map<String, Histogram> getHistograms()
+    {
+        return histograms;
+    }
+
+    public boolean isEmpty()
+    {
+        return histograms.isEmpty();
+    }
+
+    /**
+     * @return p50, p90, p99, p99.9 and max for each operation type. Only the p99
+     *         metrics are tracked for regression, the rest are too noisy.
+     */
+    public List<CaseResult.Metric> toMetrics()
+    {
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        for ( Map.Entry<String, Histogram> entry : histograms.entrySet() )
+        {
+            metrics.addAll( percentileMetrics( entry.getKey() + " latency", entry.getValue() ) );
+        }
+        return metrics;
+    }
+
+    public static List<CaseResult.Metric> percentileMetrics( String prefix, Histogram histogram )
+    {
+        List<CaseResult.Metric> metrics = new ArrayList<CaseResult.Metric>();
+        metrics.add( new CaseResult.Metric( prefix + " p50", histogram.getValueAtPercentile( 50.0 ), MICROSECOND, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( prefix + " p90", histogram.getValueAtPercentile( 90.0 ), MICROSECOND, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( prefix + " p99", histogram.getValueAtPercentile( 99.0 ), MICROSECOND, /* track regression = */ true, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( prefix + " p99.9", histogram.getValueAtPercentile( 99.9 ), MICROSECOND, SMALLER_IS_BETTER ) );
+        metrics.add( new CaseResult.Metric( prefix + " max", histogram.getMaxValue(), MICROSECOND, SMALLER_IS_BETTER ) );
+        return metrics;
+    }
+
+    public static Histogram newHistogram()
+    {
+        return new Histogram( HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS );
+    }
+
+    public static long clamp( long micros )
+    {
+        return Math.max( 0, Math.min( micros, HIGHEST_TRACKABLE_MICROS ) );
+    }
+
+    private Histogram histogramFor( String operation )
+    {
+        Histogram histogram = histograms.get( operation );
+        if ( histogram == null )
+        {
+            histogram = newHistogram();
+            histograms.put( operation, histogram );
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completed reads and writes, bucketed into one second windows of wall clock
+ * time, so throughput can be looked at over the course of a run rather than
+ * only as an average.
+ *
+ * This is not thread safe - each worker keeps its own instance, and the
+ * instances are merged with {@link #add(ThroughputSeries)}, the same way as
+ * {@link OperationLatencies}.
+ */
+public class ThroughputSeries
+{
+    public static final long WINDOW_MILLIS = TimeUnit.SECONDS.toMillis( 1 );
+
+    // Window of index 0, in seconds since the epoch, -1 until something is recorded
+    private long firstWindow = -1;
+    private long[] reads = new long[16];
+    private long[] writes = new long[16];
+
+    // Totals as of the last update
+    private long lastReads;
+    private long lastWrites;
+
+    /**
+     * Puts whatever the running totals have grown by since the last update
+     * into the current window. Workers call this after each operation with
+     * the counters they keep anyway.
+     */
+    public void update( long totalReads, long totalWrites )
+    {
+        long newReads = totalReads - lastReads;
+        long newWrites = totalWrites - lastWrites;
+        if ( newReads == 0 && newWrites == 0 )
+        {
+            return;
+        }
+        int index = indexFor( System.currentTimeMillis() / WINDOW_MILLIS );
+        reads[index] += newReads;
+        writes[index] += newWrites;
+        lastReads = totalReads;
+        lastWrites = totalWrites;
+    }
+
+    public void add( ThroughputSeries other )
+    {
+        if ( other.firstWindow == -1 )
+        {
+            return;
+        }
+        for ( int i = other.reads.length - 1; i >= 0; i-- )
+        {
+            if ( other.reads[i] != 0 || other.writes[i] != 0 )
+            {
+                int index = indexFor( other.firstWindow + i );
+                reads[index] += other.reads[i];
+                writes[index] += other.writes[i];
+            }
+        }
+    }
+
+    /**
+     * @return reads completed in each whole window between the two points in
+     *         time, as given by {@link System#currentTimeMillis()}
+     */
+    public long[] getReads( long fromMillis, long toMillis )
+    {
+        return windows( reads, fromMillis, toMillis );
+    }
+
+    /**
+     * @return writes completed in each whole window between the two points in
+     *         time, as given by {@link System#currentTimeMillis()}
+     */
+    public long[] getWrites( long fromMillis, long toMillis )
+    {
+        return windows( writes, fromMillis, toMillis );
+    }
+
+    public static long max( long[] windows )
+    {
+        long max = 0;
+        for ( long window : windows )
+        {
+            max = Math.max( max, window );
+        }
+        return max;
+    }
+
+    /**
+     * @param percentile between 0 and 100, a low one gives a rate that was
+     *            sustained for nearly the whole time
+     */
+    public static long percentile( long[] windows, double percentile )
+    {
+        if ( windows.length == 0 )
+        {
+            return 0;
+        }
+        long[] sorted = windows.clone();
+        Arrays.sort( sorted );
+        int index = (int) Math.ceil( percentile / 100.0 * sorted.length ) - 1;
+        return sorted[Math.max( 0, Math.min( index, sorted.length - 1 ) )];
+    }
+
+    public static List<Double> asList( long[] windows )
+    {
+        List<Double> values = new ArrayList<Double>( windows.length );
+        for ( long window : windows )
+        {
+            values.add( (double) window );
+        }
+        return values;
+    }
+
+    private long[] windows( long[] counts, long fromMillis, long toMillis )
+    {
+        // Partial windows at either end would read as dips
+        long from = ( fromMillis + WINDOW_MILLIS - 1 ) / WINDOW_MILLIS;
+        long to = toMillis / WINDOW_MILLIS;
+        long[] result = new long[(int) Math.max( 0, to - from )];
+        for ( int i = 0; i < result.length; i++ )
+        {
+            long index = from + i - firstWindow;
+            if ( firstWindow != -1 && index >= 0 && index < counts.length )
+            {
+                result[i] = counts[(int) index];
+            }
+        }
+        return result;
+    }
+
+    private int indexFor( long window )
+    {
+        if ( firstWindow == -1 )
+        {
+            firstWindow = window;
+        }
+        if ( window < firstWindow )
+        {
+            // Shift everything up to make room at the front
+            int shift = (int) ( firstWindow - window );
+            reads = shifted( reads, shift );
+            writes = shifted( writes, shift );
+            firstWindow = window;
+        }
+        long index = window - firstWindow;
+        if ( index >= reads.length )
+        {
+            int length = Math.max( reads.length * 2, (int) index + 1 );
+            reads = Arrays.copyOf( reads, length );
+            writes = Arrays.copyOf( writes, length );
+        }
+        return (int) index;
+    }
+
+    private static long[] shifted( long[] counts, int shift )
+    {
+        long[] result = new long[counts.length + shift];
+        System.arraycopy( counts, 0, result, shift, counts.length );
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+/**
+ * Gunther's Universal Scalability Law,
+ *
+ * <pre>
+ * X(N) = lambda * N / ( 1 + sigma * (N - 1) + kappa * N * (N - 1) )
+ * </pre>
+ *
+ * where X(N) is throughput at concurrency N, lambda the throughput of a
+ * single client, sigma the contention coefficient, the part of the work that
+ * serializes, and kappa the coherency coefficient, the cost of keeping shared
+ * state consistent between clients.
+ */
+public class UniversalScalabilityLaw
+{
+    private final double lambda;
+    private final double sigma;
+    private final double kappa;
+
+    public UniversalScalabilityLaw( double lambda, double sigma, double kappa )
+    {
+        this.lambda = lambda;
+        this.sigma = sigma;
+        this.kappa = kappa;
+    }
+
+    /**
+     * Fits the model with least squares on its linearized form. With
+     * C(N) = X(N) / X(1),
+     *
+     * <pre>
+     * N / C(N) - 1 = sigma * (N - 1) + kappa * N * (N - 1)
+     * </pre>
+     *
+     * which is linear in sigma and kappa.
+     *
+     * @param concurrency the levels measured, one of them must be 1
+     * @param throughput throughput measured at each level
+     */
+    public static UniversalScalabilityLaw fit( int[] concurrency, double[] throughput )
+    {
+        if ( concurrency.length != throughput.length )
+        {
+            throw new IllegalArgumentException( "Need one throughput value per concurrency level." );
+        }
+        double lambda = -1;
+        for ( int i = 0; i < concurrency.length; i++ )
+        {
+            if ( concurrency[i] == 1 )
+            {
+                lambda = throughput[i];
+            }
+        }
+        if ( lambda <= 0 )
+        {
+            throw new IllegalArgumentException( "Need a positive throughput at concurrency 1 to fit against." );
+        }
+
+        double saa = 0, sab = 0, sbb = 0, say = 0, sby = 0;
+        for ( int i = 0; i < concurrency.length; i++ )
+        {
+            double n = concurrency[i];
+            double a = n - 1;
+            double b = n * ( n - 1 );
+            double y = n * lambda / throughput[i] - 1;
+            saa += a * a;
+            sab += a * b;
+            sbb += b * b;
+            say += a * y;
+            sby += b * y;
+        }
+
+        double determinant = saa * sbb - sab * sab;
+        if ( Math.abs( determinant ) < 1e-12 * Math.max( 1, saa * sbb ) )
+        {
+            // Too few levels to tell the two apart, put it all on contention
+            return new UniversalScalabilityLaw( lambda, saa == 0 ? 0 : say / saa, 0 );
+        }
+        double sigma = ( say * sbb - sby * sab ) / determinant;
+        double kappa = ( sby * saa - say * sab ) / determinant;
+        return new UniversalScalabilityLaw( lambda, sigma, kappa );
+    }
+
+    public double throughputAt( double concurrency )
+    {
+        return lambda * concurrency / ( 1 + sigma * ( concurrency - 1 ) + kappa * concurrency * ( concurrency - 1 ) );
+    }
+
+    /**
+     * @return the concurrency at which throughput peaks, infinite if it
+     *         never does
+     */
+    public double peakConcurrency()
+    {
+        return kappa > 0 ? Math.sqrt( ( 1 - sigma ) / kappa ) : Double.POSITIVE_INFINITY;
+    }
+
+    public double getLambda()
+    {
+        return lambda;
+    }
+
+    public double getSigma()
+    {
+        return sigma;
+    }
+
+    public double getKappa()
+    {
+        return kappa;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "USL[lambda=" + lambda + ", sigma=" + sigma + ", kappa=" + kappa + "]";
+    }
+}
@@ -29,6 +29,7 @@ import java.util.Set;
 
 import org.neo4j.bench.domain.CaseResult;
 import org.neo4j.bench.domain.RunResult;
+import org.neo4j.bench.metrics.JvmMetricsSampler;
 import org.neo4j.graphdb.NotFoundException;
 
 public class RegressionReport
@@ -87,6 +88,44 @@ public class RegressionReport
 
             return sw.toString();
         }
+
+        /**
+         * Lists what the JVM did during the regressed run next to what it
+         * did during the run it is compared to, to tell a slower database
+         * from a busier JVM at a glance.
+         */
+        public String jvmMetricsToStringWithPrefix( String prefix )
+        {
+            StringWriter sw = new StringWriter(  );
+            PrintWriter out = new PrintWriter( sw );
+
+            CaseResult regressedCase = regressedRun.getCase( caseName );
+            boolean header = false;
+            for(CaseResult.Metric regressedMetric : regressedCase.getMetrics())
+            {
+                if(!regressedMetric.getName().startsWith( JvmMetricsSampler.PREFIX ))
+                {
+                    continue;
+                }
+                if(!header)
+                {
+                    out.printf( "%sJVM metrics, version %s vs now:\n", prefix, trumpingRun.getTestedVersion() );
+                    header = true;
+                }
+
+                CaseResult.Metric trumpingMetric = trumpingRun.getMetric( caseName, regressedMetric.getName() );
+                String name = regressedMetric.getName().substring( JvmMetricsSampler.PREFIX.length() );
+                if(trumpingMetric != null)
+                {
+                    out.printf( "%s  %s: %.4f -> %.4f\n", prefix, name, trumpingMetric.getValue(), regressedMetric.getValue() );
+                } else
+                {
+                    out.printf( "%s  %s: n/a -> %.4f\n", prefix, name, regressedMetric.getValue() );
+                }
+            }
+
+            return sw.toString();
+        }
     }
 
     List<Regression> regressions = new ArrayList<Regression>(  );
@@ -124,9 +163,18 @@ public class RegressionReport
 
                 out.append( "Case: '"+ caseName +"'\n" );
 
+                Regression caseRegression = null;
                 for(String metricName : getMetricNames(caseName))
                 {
-                    out.append( getRegression(caseName, metricName).toStringWithPrefix( "  " ) );
+                    caseRegression = getRegression(caseName, metricName);
+                    out.append( caseRegression.toStringWithPrefix( "  " ) );
+                    out.append( "\n" );
+                }
+
+                String jvmMetrics = caseRegression.jvmMetricsToStringWithPrefix( "  " );
+                if(jvmMetrics.length() > 0)
+                {
+                    out.append( jvmMetrics );
                     out.append( "\n" );
                 }
             }
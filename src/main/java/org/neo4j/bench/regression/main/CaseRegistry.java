@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.regression.main;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.bench.CacheMode;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.cases.cypher.ConcurrentCypherBenchCase;
+import org.neo4j.bench.cases.cypher.CypherQueriesBenchmark;
+import org.neo4j.bench.cases.cypher.PlanCacheBenchCase;
+import org.neo4j.bench.cases.cypher.QueryCatalog;
+import org.neo4j.bench.cases.graphalgo.GraphAlgoBenchCase;
+import org.neo4j.bench.cases.mixedload.MappedMemoryBenchCase;
+import org.neo4j.bench.cases.mixedload.MixedLoadBenchCase;
+import org.neo4j.bench.cases.mixedload.ScalabilityBenchCase;
+import org.neo4j.bench.cases.mixedload.Workload;
+import org.neo4j.bench.cases.mixedload.trace.TraceReplayBenchCase;
+import org.neo4j.bench.cases.scan.ParallelScanBenchCase;
+import org.neo4j.bench.cases.traversal.TraversalBenchCase;
+import org.neo4j.bench.cases.txsize.TransactionSizeBenchCase;
+import org.neo4j.helpers.Args;
+
+/**
+ * Knows which cases a run is made up of. Building the cases from the same
+ * arguments always gives the same cases in the same order, which is how a
+ * forked JVM finds the case it is to run from its index alone.
+ */
+public class CaseRegistry
+{
+    public static List<BenchmarkCase> cases( Args argz )
+    {
+        long timeToRun = Long.parseLong( argz.get( "time-to-run", "60" ) ); /* Time in minutes */
+        double openLoopRate = Double.parseDouble( argz.get( "open-loop-rate", "0" ) ); /* Operations per second, 0 for closed loop */
+        boolean offHeapNodePool = Boolean.parseBoolean( argz.get( "off-heap-node-pool", "false" ) );
+        int clients = Integer.parseInt( argz.get( "clients", "0" ) ); /* Simulated clients, 0 for one per core plus two */
+        boolean virtualThreads = Boolean.parseBoolean( argz.get( "virtual-threads", "false" ) );
+        String workloadFiles = argz.get( "workloads", "" ); /* Comma separated workload files, empty for the default workload */
+        long seed = Long.parseLong( argz.get( "seed", Long.toString( MixedLoadBenchCase.DEFAULT_SEED ) ) );
+        String recordTraceDir = argz.get( "record-trace", "" ); /* Directory to record a trace per workload to, empty to not record */
+        String replayTraces = argz.get( "replay-trace", "" ); /* Comma separated trace files to replay instead of the workloads */
+        boolean replayAtRecordedSpeed = Boolean.parseBoolean( argz.get( "replay-at-recorded-speed", "false" ) );
+        long txSizeSeconds = Long.parseLong( argz.get( "tx-size-seconds", "0" ) ); /* Time to write with each transaction size, 0 to skip the sweep */
+        int scanThreads = Integer.parseInt( argz.get( "scan-threads", "0" ) ); /* Most threads to scan with, 0 for one per core */
+        String scanDataSets = argz.get( "scan-data-sets", "CINEASTS" ); /* Comma separated data sets to scan, empty to skip */
+        long scalabilitySeconds = Long.parseLong( argz.get( "scalability-seconds", "0" ) ); /* Time per concurrency level, 0 to skip the sweep */
+        int scalabilityClients = Integer.parseInt( argz.get( "scalability-clients", "0" ) ); /* Most clients the sweep goes up to, 0 for twice the cores */
+        String cacheModes = argz.get( "cache-modes", "warm" ); /* Comma separated page cache states to run the Cypher queries in, cold only runs on Linux */
+        String queryFiles = argz.get( "queries", "" ); /* Comma separated query catalog files, empty for the default catalog */
+        long cypherConcurrencySeconds = Long.parseLong( argz.get( "cypher-concurrency-seconds", "0" ) ); /* Time per concurrency level for the catalog queries, 0 to skip */
+        long planCacheSeconds = Long.parseLong( argz.get( "plan-cache-seconds", "0" ) ); /* Time to run the queries in each plan cache case, 0 to skip */
+        String traversalDataSets = argz.get( "traversal-data-sets", "CINEASTS" ); /* Comma separated data sets to traverse, empty to skip */
+        String graphAlgoDataSets = argz.get( "graph-algo-data-sets", "CINEASTS" ); /* Comma separated data sets to find paths in, empty to skip */
+        long mappedMemorySeconds = Long.parseLong( argz.get( "mapped-memory-seconds", "0" ) ); /* Time per mapped memory size, 0 to skip the sweep */
+        String mappedMemoryDataSet = argz.get( "mapped-memory-data-set", "power-law-10000000-seed1" ); /* Generated data set to sweep mapped memory over */
+
+        List<BenchmarkCase> benchmarks = new ArrayList<BenchmarkCase>();
+        for ( QueryCatalog catalog : catalogs( queryFiles ) )
+        {
+            for ( String dataSet : catalog.dataSets() )
+            {
+                for ( String cacheMode : cacheModes.split( "," ) )
+                {
+                    if ( cacheMode.trim().length() == 0 )
+                    {
+                        continue;
+                    }
+                    CacheMode mode = CacheMode.fromName( cacheMode );
+                    if ( !mode.isSupported() )
+                    {
+                        System.out.println( "Notice: Skipping the " + mode.getName() + " Cypher queries on " + dataSet
+                                            + ", the page cache can't be put in that state on this platform." );
+                        continue;
+                    }
+                    benchmarks.add( new CypherQueriesBenchmark( dataSet, catalog.queriesFor( dataSet ), mode ) );
+                }
+                if ( cypherConcurrencySeconds > 0 )
+                {
+                    benchmarks.add( new ConcurrentCypherBenchCase( dataSet, catalog.queriesFor( dataSet ),
+                            cypherConcurrencySeconds, clients, seed ) );
+                }
+            }
+        }
+        if ( planCacheSeconds > 0 )
+        {
+            benchmarks.add( new PlanCacheBenchCase( planCacheSeconds, seed ) );
+        }
+        for ( String dataSet : traversalDataSets.split( "," ) )
+        {
+            if ( dataSet.trim().length() > 0 )
+            {
+                benchmarks.add( new TraversalBenchCase( dataSet.trim(), seed ) );
+            }
+        }
+        for ( String dataSet : graphAlgoDataSets.split( "," ) )
+        {
+            if ( dataSet.trim().length() > 0 )
+            {
+                benchmarks.add( new GraphAlgoBenchCase( dataSet.trim(), seed ) );
+            }
+        }
+        if ( txSizeSeconds > 0 )
+        {
+            benchmarks.add( new TransactionSizeBenchCase( txSizeSeconds ) );
+        }
+        for ( String dataSet : scanDataSets.split( "," ) )
+        {
+            if ( dataSet.trim().length() > 0 )
+            {
+                benchmarks.add( new ParallelScanBenchCase( dataSet.trim(), scanThreads ) );
+            }
+        }
+        if ( replayTraces.trim().length() > 0 )
+        {
+            for ( String traceFile : replayTraces.split( "," ) )
+            {
+                benchmarks.add( new TraceReplayBenchCase( new File( traceFile.trim() ), replayAtRecordedSpeed ) );
+            }
+        }
+        else
+        {
+            for ( Workload workload : workloads( workloadFiles ) )
+            {
+                File traceFile = recordTraceDir.length() > 0 ? new File( recordTraceDir, workload.getName() + ".trace" ) : null;
+                benchmarks.add( new MixedLoadBenchCase( workload, timeToRun, openLoopRate, offHeapNodePool, clients,
+                        virtualThreads, seed, traceFile ) );
+                if ( scalabilitySeconds > 0 )
+                {
+                    benchmarks.add( new ScalabilityBenchCase( workload, scalabilitySeconds, scalabilityClients, seed ) );
+                }
+                if ( mappedMemorySeconds > 0 )
+                {
+                    benchmarks.add( new MappedMemoryBenchCase( workload, mappedMemoryDataSet, mappedMemorySeconds, clients, seed ) );
+                }
+            }
+        }
+        return benchmarks;
+    }
+
+    private static List<Workload> workloads( String workloadFiles )
+    {
+        List<Workload> workloads = new ArrayList<Workload>();
+        for ( String file : workloadFiles.split( "," ) )
+        {
+            if ( file.trim().length() > 0 )
+            {
+                workloads.add( Workload.load( new File( file.trim() ) ) );
+            }
+        }
+        if ( workloads.isEmpty() )
+        {
+            workloads.add( Workload.defaultWorkload() );
+        }
+        return workloads;
+    }
+
+    private static List<QueryCatalog> catalogs( String queryFiles )
+    {
+        List<QueryCatalog> catalogs = new ArrayList<QueryCatalog>();
+        for ( String file : queryFiles.split( "," ) )
+        {
+            if ( file.trim().length() > 0 )
+            {
+                catalogs.add( QueryCatalog.load( new File( file.trim() ) ) );
+            }
+        }
+        if ( catalogs.isEmpty() )
+        {
+            catalogs.add( QueryCatalog.defaultCatalog() );
+        }
+        return catalogs;
+    }
+
+    private CaseRegistry(){}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.regression.main;
+
+import static org.neo4j.bench.domain.CaseResult.MetricComparer.SMALLER_IS_BETTER;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.neo4j.bench.cases.BenchmarkCase;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.Units;
+import org.neo4j.bench.metrics.JvmMetricsSampler;
+import org.neo4j.helpers.Args;
+
+/**
+ * Runs benchmark cases, either in this JVM or each in a JVM of its own.
+ *
+ * A forked JVM starts with a clean heap, JIT and GC history, so a case does
+ * not pay for garbage or profile pollution left behind by the cases before
+ * it, and can be run with JVM options other than the ones the harness was
+ * started with. The forked JVM is started with the arguments given to the
+ * harness plus the index of the case to run, and hands its result back as
+ * a line of JSON on standard out.
+ */
+public class CaseRunner
+{
+    public static final String CASE_ARG = "case";
+    static final String RESULT_MARKER = "@@CASE-RESULT@@ ";
+    public static final String SETUP_TIME = "Setup time";
+
+    public static CaseResult run( BenchmarkCase benchCase )
+    {
+        long setUpStart = System.nanoTime();
+        JvmMetricsSampler setUpSampler = JvmMetricsSampler.start( JvmMetricsSampler.SETUP_PREFIX );
+        List<CaseResult.Metric> setUpMetrics;
+        try
+        {
+            benchCase.setUp();
+        }
+        finally
+        {
+            setUpMetrics = setUpSampler.stop();
+        }
+        long setUpNanos = System.nanoTime() - setUpStart;
+        try
+        {
+            // Only what run measures, populating and restoring belong in setUp
+            JvmMetricsSampler sampler = JvmMetricsSampler.start();
+            CaseResult result = benchCase.run();
+            for ( CaseResult.Metric metric : sampler.stop() )
+            {
+                result.addMetric( metric );
+            }
+            for ( CaseResult.Metric metric : setUpMetrics )
+            {
+                result.addMetric( metric );
+            }
+            // Mostly restoring the store, kept apart from what the case measures
+            result.addMetric( new CaseResult.Metric( SETUP_TIME, setUpNanos / (double) TimeUnit.MILLISECONDS.toNanos( 1 ),
+                    Units.MILLISECOND, SMALLER_IS_BETTER ) );
+            return result;
+        }
+        finally
+        {
+            benchCase.tearDown();
+        }
+    }
+
+    public static CaseResult runForked( int caseIndex, String[] args, JvmOptionSet optionSet )
+    {
+        List<String> command = new ArrayList<String>();
+        command.add( new File( new File( System.getProperty( "java.home" ), "bin" ), "java" ).getAbsolutePath() );
+        command.addAll( optionSet.getOptions() );
+        command.add( "-cp" );
+        command.add( System.getProperty( "java.class.path" ) );
+        command.add( CaseRunner.class.getName() );
+        command.addAll( Arrays.asList( args ) );
+        command.add( "-" + CASE_ARG + "=" + caseIndex );
+
+        System.out.println( "Forking case " + caseIndex + " with " + optionSet );
+        try
+        {
+            Process process = new ProcessBuilder( command ).redirectErrorStream( true ).start();
+            process.getOutputStream().close();
+            String resultJson = null;
+            BufferedReader output = new BufferedReader( new InputStreamReader( process.getInputStream() ) );
+            try
+            {
+                String line;
+                while ( ( line = output.readLine() ) != null )
+                {
+                    if ( line.startsWith( RESULT_MARKER ) )
+                    {
+                        resultJson = line.substring( RESULT_MARKER.length() );
+                    }
+                    else
+                    {
+                        System.out.println( line );
+                    }
+                }
+            }
+            finally
+            {
+                output.close();
+            }
+
+            int exitCode = process.waitFor();
+            if ( exitCode != 0 || resultJson == null )
+            {
+                throw new RuntimeException( "Forked case " + caseIndex + " with " + optionSet + " exited with code "
+                                            + exitCode + ( resultJson == null ? " and no result." : "." ) );
+            }
+            CaseResult result = new ObjectMapper().readValue( resultJson, CaseResult.class );
+            return result.withCaseName( optionSet.tag( result.getCaseName() ) );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to run forked case " + caseIndex + " with " + optionSet + ".", e );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted waiting for forked case " + caseIndex + ".", e );
+        }
+    }
+
+    /**
+     * Entry point of a forked JVM, runs the case at the index given by
+     * {@link #CASE_ARG} and prints its result.
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        Args argz = new Args( args );
+        int caseIndex = Integer.parseInt( argz.get( CASE_ARG, null ) );
+        CaseResult result = run( CaseRegistry.cases( argz ).get( caseIndex ) );
+
+        System.out.println( RESULT_MARKER + new ObjectMapper().writeValueAsString( result ) );
+        System.out.flush();
+        // Cases may leave non-daemon threads behind, don't wait for them
+        System.exit( 0 );
+    }
+}
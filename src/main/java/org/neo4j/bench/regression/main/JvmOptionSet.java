@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.regression.main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A named set of JVM options to run forked cases with. Option sets are read
+ * from a file with one set per line,
+ *
+ * <pre>
+ * # name = options
+ * g1-2g = -Xmx2g -XX:+UseG1GC
+ * parallel-2g = -Xmx2g -XX:+UseParallelGC
+ * </pre>
+ *
+ * Results from a named set get its name appended to the case name, so each
+ * set builds a history of its own.
+ */
+public class JvmOptionSet
+{
+    private final String name;
+    private final List<String> options;
+
+    public JvmOptionSet( String name, List<String> options )
+    {
+        this.name = name;
+        this.options = options;
+    }
+
+    /*
+     * Options that attach something to the JVM, rather than tune it. A forked
+     * JVM that inherits them would be debugged or profiled along with this
+     * one, or fail to start on a port this one already holds.
+     */
+    private static final String[] NOT_INHERITED = {
+            "-agentlib:",
+            "-agentpath:",
+            "-javaagent:",
+            "-Xrunjdwp",
+            "-Xdebug",
+            "-Dcom.sun.management.jmxremote" };
+
+    /**
+     * @return the options this JVM was started with, less any agents,
+     *         debugger and JMX settings, under no name, so case names stay
+     *         the same as when running without forking
+     */
+    public static JvmOptionSet inherited()
+    {
+        return new JvmOptionSet( null, inheritable( ManagementFactory.getRuntimeMXBean().getInputArguments() ) );
+    }
+
+    static List<String> inheritable( List<String> options )
+    {
+        List<String> inheritable = new ArrayList<String>();
+        for ( String option : options )
+        {
+            if ( !attachesSomething( option ) )
+            {
+                inheritable.add( option );
+            }
+        }
+        return inheritable;
+    }
+
+    private static boolean attachesSomething( String option )
+    {
+        for ( String prefix : NOT_INHERITED )
+        {
+            if ( option.startsWith( prefix ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static List<JvmOptionSet> load( File file )
+    {
+        List<JvmOptionSet> optionSets = new ArrayList<JvmOptionSet>();
+        try
+        {
+            BufferedReader reader = new BufferedReader( new FileReader( file ) );
+            try
+            {
+                String line;
+                while ( ( line = reader.readLine() ) != null )
+                {
+                    line = line.trim();
+                    if ( line.length() == 0 || line.startsWith( "#" ) )
+                    {
+                        continue;
+                    }
+                    int separator = line.indexOf( '=' );
+                    if ( separator <= 0 )
+                    {
+                        throw new IllegalArgumentException( "Expected 'name = options' in '" + file.getAbsolutePath()
+                                                            + "', got '" + line + "'." );
+                    }
+                    String options = line.substring( separator + 1 ).trim();
+                    optionSets.add( new JvmOptionSet( line.substring( 0, separator ).trim(),
+                            options.length() == 0 ? Collections.<String>emptyList() : Arrays.asList( options.split( "\\s+" ) ) ) );
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read JVM option sets from '" + file.getAbsolutePath() + "'.", e );
+        }
+        if ( optionSets.isEmpty() )
+        {
+            throw new IllegalArgumentException( "No JVM option sets in '" + file.getAbsolutePath() + "'." );
+        }
+        return optionSets;
+    }
+
+    public List<String> getOptions()
+    {
+        return options;
+    }
+
+    /**
+     * @return the case name a result from this option set is reported under
+     */
+    public String tag( String caseName )
+    {
+        return name == null ? caseName : caseName + " (" + name + ")";
+    }
+
+    @Override
+    public String toString()
+    {
+        return ( name == null ? "inherited" : name ) + " " + options;
+    }
+}
@@ -20,13 +20,13 @@
 package org.neo4j.bench.regression.main;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectWriter;
 import org.neo4j.bench.cases.BenchmarkCase;
-import org.neo4j.bench.cases.cypher.CineastsQueriesBenchmark;
-import org.neo4j.bench.cases.mixedload.MixedLoadBenchCase;
 import org.neo4j.bench.domain.RunResult;
 import org.neo4j.bench.domain.filter.VersionFilter;
 import org.neo4j.bench.regression.PerformanceHistoryRepository;
@@ -43,29 +43,35 @@ public class Main
     {
         // Arguments
         Args argz = new Args( args );
-        long timeToRun = Long.parseLong( argz.get( "time-to-run", "60" ) ); /* Time in minutes */
         double threshold = Double.parseDouble( argz.get( "threshold", "0.1" ) );
         String neoVersion = argz.get( "neo4j-version", "N/A" );
         String buildUrl = argz.get( "build-url", "Unknown build url" );
+        boolean fork = Boolean.parseBoolean( argz.get( "fork", "true" ) ); /* Run each case in a JVM of its own */
+        String jvmOptionsFile = argz.get( "jvm-options", "" ); /* Option sets to run each forked case with, empty for this JVM's options */
 
         // Components
         PerformanceHistoryRepository history = new PerformanceHistoryRepository(argz.get(OPS_PER_SECOND_FILE_ARG, "ops-per-second"));
         RegressionDetector regressionDetector = new RegressionDetector(threshold, VersionFilter.GA_ONLY );
 
         // Benchmark
-        BenchmarkCase [] benchmarks = new BenchmarkCase[] {
-            new CineastsQueriesBenchmark(),
-            new MixedLoadBenchCase( timeToRun )
-        };
+        List<BenchmarkCase> benchmarks = CaseRegistry.cases( argz );
+        List<JvmOptionSet> optionSets = jvmOptionsFile.length() > 0 ?
+                JvmOptionSet.load( new File( jvmOptionsFile ) ) :
+                Collections.singletonList( JvmOptionSet.inherited() );
 
         RunResult results = new RunResult(neoVersion, new Date(), buildUrl);
-        for(BenchmarkCase benchCase : benchmarks)
+        for ( int i = 0; i < benchmarks.size(); i++ )
         {
-            benchCase.setUp();
-            try {
-                results.addResult( benchCase.run() );
-            } finally {
-                benchCase.tearDown();
+            if ( fork )
+            {
+                for ( JvmOptionSet optionSet : optionSets )
+                {
+                    results.addResult( CaseRunner.runForked( i, args, optionSet ) );
+                }
+            }
+            else
+            {
+                results.addResult( CaseRunner.run( benchmarks.get( i ) ) );
             }
         }
 
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executors for running simulated clients.
+ */
+public class ClientThreads
+{
+    /**
+     * @return an executor that runs each task on its own virtual thread, if
+     *         the JVM we run on has them (Java 21 and later). Otherwise each
+     *         task gets its own platform thread, which works the same way but
+     *         will not scale to as many clients.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor()
+    {
+        try
+        {
+            Method factory = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+            return (ExecutorService) factory.invoke( null );
+        }
+        catch ( NoSuchMethodException e )
+        {
+            System.out.println( "Notice: Virtual threads are not available on Java " +
+                    System.getProperty( "java.version" ) + ", using one platform thread per client instead." );
+            return Executors.newCachedThreadPool( daemonThreads() );
+        }
+        catch ( Exception e )
+        {
+            throw new RuntimeException( "Unable to create virtual thread executor", e );
+        }
+    }
+
+    public static ExecutorService newFixedThreadPool( int threads )
+    {
+        return Executors.newFixedThreadPool( threads, daemonThreads() );
+    }
+
+    /**
+     * @return 1, 2, 4 and so on up to, and including, max. The levels
+     *         concurrency sweeps are run at.
+     */
+    public static List<Integer> doublingUpTo( int max )
+    {
+        List<Integer> counts = new ArrayList<Integer>();
+        for ( int threads = 1; threads < max; threads *= 2 )
+        {
+            counts.add( threads );
+        }
+        counts.add( max );
+        return counts;
+    }
+
+    public static ThreadFactory daemonThreads()
+    {
+        return new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( Runnable r )
+            {
+                Thread thread = new Thread( r );
+                thread.setDaemon( true );
+                return thread;
+            }
+        };
+    }
+
+    private ClientThreads(){}
+}
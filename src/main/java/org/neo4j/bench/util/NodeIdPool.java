@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.util;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of node ids that supports adding an id, sampling a uniformly random
+ * id and removing a uniformly random id, all in constant time. Ids are kept
+ * as primitive longs, densely packed at the front of fixed size chunks that
+ * are allocated as the pool grows, either on the heap or, for very large
+ * graphs, off heap in direct buffers.
+ *
+ * Sampling is lock-free, it reads a random slot below the published size.
+ * Adding and removing take a short lock: an add appends, a remove moves the
+ * last id into the slot it empties, so there are never any holes to skip,
+ * however many ids have been removed. A sample that races with a remove may
+ * get the id being removed, which is no different from getting an id that
+ * is removed right after it was sampled.
+ */
+public class NodeIdPool
+{
+    public static final long NO_ID = -1;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = Integer.MAX_VALUE / CHUNK_SIZE;
+
+    private final Slots slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Written after the slots below it, so a reader that sees it sees them
+    private volatile int size;
+
+    public static NodeIdPool onHeap()
+    {
+        return new NodeIdPool( new HeapSlots() );
+    }
+
+    public static NodeIdPool offHeap()
+    {
+        return new NodeIdPool( new OffHeapSlots() );
+    }
+
+    private NodeIdPool( Slots slots )
+    {
+        this.slots = slots;
+    }
+
+    public void add( long id )
+    {
+        if ( id < 0 )
+        {
+            throw new IllegalArgumentException( "Node ids are never negative, got " + id );
+        }
+
+        lock.lock();
+        try
+        {
+            int slot = size;
+            if ( slot >= MAX_CHUNKS * CHUNK_SIZE )
+            {
+                throw new IllegalStateException( "Node id pool is full" );
+            }
+            slots.set( slot, id );
+            size = slot + 1;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a uniformly random id from the pool, or {@link #NO_ID} if the
+     *         pool is empty. The id is left in the pool.
+     */
+    public long randomId( Random random )
+    {
+        int current = size;
+        return current == 0 ? NO_ID : slots.get( random.nextInt( current ) );
+    }
+
+    /**
+     * @return a uniformly random id that has been removed from the pool, or
+     *         {@link #NO_ID} if the pool is empty.
+     */
+    public long removeRandomId( Random random )
+    {
+        lock.lock();
+        try
+        {
+            int current = size;
+            if ( current == 0 )
+            {
+                return NO_ID;
+            }
+            int slot = random.nextInt( current );
+            long id = slots.get( slot );
+            slots.set( slot, slots.get( current - 1 ) );
+            size = current - 1;
+            return id;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Lets go of the memory held by this pool, off heap memory is released
+     * once the buffers are collected. The pool can not be used after this.
+     */
+    public void close()
+    {
+        lock.lock();
+        try
+        {
+            size = 0;
+            slots.close();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Chunks are only allocated by set, under the lock of the pool, and get
+     * only reads slots below the published size, whose chunks are there.
+     */
+    private static abstract class Slots
+    {
+        abstract long get( int slot );
+
+        abstract void set( int slot, long value );
+
+        abstract void close();
+    }
+
+    private static class HeapSlots extends Slots
+    {
+        private long[][] chunks = new long[MAX_CHUNKS][];
+
+        @Override
+        long get( int slot )
+        {
+            return chunks[slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+        }
+
+        @Override
+        void set( int slot, long value )
+        {
+            int index = slot >>> CHUNK_BITS;
+            if ( chunks[index] == null )
+            {
+                chunks[index] = new long[CHUNK_SIZE];
+            }
+            chunks[index][slot & CHUNK_MASK] = value;
+        }
+
+        @Override
+        void close()
+        {
+            chunks = new long[MAX_CHUNKS][];
+        }
+    }
+
+    private static class OffHeapSlots extends Slots
+    {
+        private LongBuffer[] chunks = new LongBuffer[MAX_CHUNKS];
+
+        @Override
+        long get( int slot )
+        {
+            return chunks[slot >>> CHUNK_BITS].get( slot & CHUNK_MASK );
+        }
+
+        @Override
+        void set( int slot, long value )
+        {
+            int index = slot >>> CHUNK_BITS;
+            if ( chunks[index] == null )
+            {
+                chunks[index] = ByteBuffer.allocateDirect( CHUNK_SIZE * 8 ).asLongBuffer();
+            }
+            chunks[index].put( slot & CHUNK_MASK, value );
+        }
+
+        @Override
+        void close()
+        {
+            chunks = new LongBuffer[MAX_CHUNKS];
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.util;
+
+import java.util.Random;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.impl.core.NodeManager;
+
+/**
+ * Picks nodes at random from the whole node id space of a store. With the
+ * same seed and the same store the same nodes come back, so cases that start
+ * from random nodes run the same work from one run to the next.
+ */
+public final class RandomNodes
+{
+    /**
+     * @return count nodes, any of them possibly more than once, never the
+     *         reference node, which isn't part of any data set
+     */
+    public static Node[] pick( GraphDatabaseService graphDb, int count, Random r )
+    {
+        long highestNodeId = ( (GraphDatabaseAPI) graphDb ).getDependencyResolver()
+                .resolveDependency( NodeManager.class ).getHighestPossibleIdInUse( Node.class );
+        if ( highestNodeId < 1 )
+        {
+            throw new IllegalStateException( "There are no nodes to pick from." );
+        }
+        Node[] nodes = new Node[count];
+        for ( int i = 0; i < count; )
+        {
+            long id = 1 + (long) ( r.nextDouble() * highestNodeId );
+            try
+            {
+                nodes[i] = graphDb.getNodeById( id );
+                i++;
+            }
+            catch ( NotFoundException e )
+            {
+                // Deleted, or never used
+            }
+        }
+        return nodes;
+    }
+
+    private RandomNodes(){}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.kernel.impl.util.FileUtils;
+
+public class TestStoreSnapshot
+{
+    private File snapshot;
+    private File target;
+
+    @Before
+    public void createSnapshot() throws Exception
+    {
+        snapshot = File.createTempFile( "perftest", "snapshot" );
+        snapshot.delete();
+        new File( snapshot, "index/lucene/node/users" ).mkdirs();
+        write( new File( snapshot, "neostore.nodestore.db" ), "nodes" );
+        write( new File( snapshot, "index/lucene-store.db" ), "index store" );
+        write( new File( snapshot, "index/lucene/node/users/_0.cfs" ), "segment" );
+
+        target = File.createTempFile( "perftest", "restored" );
+        target.delete();
+    }
+
+    @After
+    public void deleteSnapshot() throws Exception
+    {
+        FileUtils.deleteRecursively( snapshot );
+        FileUtils.deleteRecursively( target );
+    }
+
+    @Test
+    public void shouldRestoreEveryFile() throws Exception
+    {
+        // When
+        StoreSnapshot.restore( snapshot, target );
+
+        // Then
+        assertThat( read( new File( target, "neostore.nodestore.db" ) ), is( "nodes" ) );
+        assertThat( read( new File( target, "index/lucene-store.db" ) ), is( "index store" ) );
+        assertThat( read( new File( target, "index/lucene/node/users/_0.cfs" ) ), is( "segment" ) );
+    }
+
+    @Test
+    public void shouldNotChangeSnapshotWhenRestoredStoreIsWrittenTo() throws Exception
+    {
+        // Given
+        StoreSnapshot.restore( snapshot, target );
+
+        // When
+        write( new File( target, "neostore.nodestore.db" ), "changed" );
+        write( new File( target, "index/lucene-store.db" ), "changed" );
+
+        // Then
+        assertThat( read( new File( snapshot, "neostore.nodestore.db" ) ), is( "nodes" ) );
+        assertThat( read( new File( snapshot, "index/lucene-store.db" ) ), is( "index store" ) );
+    }
+
+    private static void write( File file, String content ) throws IOException
+    {
+        FileOutputStream out = new FileOutputStream( file );
+        try
+        {
+            out.write( content.getBytes( "UTF-8" ) );
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private static String read( File file ) throws IOException
+    {
+        byte[] content = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream( file );
+        try
+        {
+            int read = 0;
+            while ( read < content.length )
+            {
+                read += in.read( content, read, content.length - read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return new String( content, "UTF-8" );
+    }
+}
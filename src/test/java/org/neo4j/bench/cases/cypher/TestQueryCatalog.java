@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.cypher;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TestQueryCatalog
+{
+
+    @Test
+    public void defaultCatalogShouldKeepTheOriginalQuery() throws Exception
+    {
+        // When
+        QueryCatalog catalog = QueryCatalog.defaultCatalog();
+
+        // Then
+        QueryCatalog.Query query = catalog.getQuery( "Single path with many start points" );
+        assertThat( query.getDataSet(), is( "CINEASTS" ) );
+        assertThat( query.getWarmup(), is( 20 ) );
+        assertThat( query.getRepetitions(), is( 100 ) );
+        assertThat( query.getExpectedRows(), is( 1 ) );
+        assertThat( catalog.dataSets(), is( Arrays.asList( "CINEASTS" ) ) );
+    }
+
+    @Test
+    public void shouldApplyDefaultsForOmittedFields() throws Exception
+    {
+        // When
+        QueryCatalog catalog = QueryCatalog.parse( "{ \"queries\" : [ { \"name\" : \"all\", "
+                                                   + "\"query\" : \"START n=node(*) RETURN n\" } ] }" );
+
+        // Then
+        QueryCatalog.Query query = catalog.getQueries().get( 0 );
+        assertThat( query.getDataSet(), is( "CINEASTS" ) );
+        assertThat( query.getParameters().isEmpty(), is( true ) );
+        assertThat( query.getWarmup(), is( 20 ) );
+        assertThat( query.getRepetitions(), is( 100 ) );
+        assertNull( query.getExpectedRows() );
+    }
+
+    @Test
+    public void shouldGroupQueriesByDataSetInOrderOfAppearance() throws Exception
+    {
+        // When
+        QueryCatalog catalog = QueryCatalog.parse( "{ \"queries\" : [ "
+                + "{ \"name\" : \"a\", \"dataSet\" : \"tree-1000-seed1\", \"query\" : \"q\" }, "
+                + "{ \"name\" : \"b\", \"query\" : \"q\", \"parameters\" : { \"id\" : 1 } }, "
+                + "{ \"name\" : \"c\", \"dataSet\" : \"tree-1000-seed1\", \"query\" : \"q\" } ] }" );
+
+        // Then
+        assertThat( catalog.dataSets(), is( Arrays.asList( "tree-1000-seed1", "CINEASTS" ) ) );
+        assertThat( catalog.queriesFor( "tree-1000-seed1" ).size(), is( 2 ) );
+        assertThat( catalog.queriesFor( "CINEASTS" ).get( 0 ).getParameters().get( "id" ), is( (Object) 1 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldRejectQueriesWithTheSameName() throws Exception
+    {
+        QueryCatalog.parse( "{ \"queries\" : [ { \"name\" : \"a\", \"query\" : \"q\" }, "
+                            + "{ \"name\" : \"a\", \"query\" : \"q\" } ] }" );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldRejectQueriesWithoutRepetitions() throws Exception
+    {
+        QueryCatalog.parse( "{ \"queries\" : [ { \"name\" : \"a\", \"query\" : \"q\", \"repetitions\" : 0 } ] }" );
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.graphalgo;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestGraphAlgoBenchCase
+{
+
+    @Test
+    public void weightsShouldBeTheSameEveryTimeAndAtLeastOne() throws Exception
+    {
+        for ( long relationshipId = 0; relationshipId < 10000; relationshipId++ )
+        {
+            double weight = GraphAlgoBenchCase.weight( relationshipId );
+            assertThat( GraphAlgoBenchCase.weight( relationshipId ), is( weight ) );
+            assertTrue( "Weight " + weight, weight >= 1 && weight <= 8 );
+        }
+    }
+
+    @Test
+    public void gridDistanceShouldCountStepsAlongTheGrid() throws Exception
+    {
+        // Given a 10x10 grid, generated with 200 relationships
+        GraphAlgoBenchCase.GridDistance distance = (GraphAlgoBenchCase.GridDistance) GraphAlgoBenchCase.estimateFor( "grid-200-seed1" );
+
+        // Then, with grid positions offset by the reference node
+        assertThat( distance.steps( 1, 1 ), is( 0l ) );
+        assertThat( distance.steps( 1, 2 ), is( 1l ) );
+        assertThat( distance.steps( 1, 11 ), is( 1l ) );
+        assertThat( distance.steps( 10, 11 ), is( 10l ) );
+        assertThat( distance.steps( 100, 1 ), is( 18l ) );
+    }
+
+    @Test
+    public void shouldRunFewerPairsOnLargeGeneratedGraphs() throws Exception
+    {
+        assertThat( GraphAlgoBenchCase.pairsFor( "CINEASTS" ), is( GraphAlgoBenchCase.PAIRS ) );
+        assertThat( GraphAlgoBenchCase.pairsFor( "grid-100000-seed1" ), is( GraphAlgoBenchCase.PAIRS ) );
+        assertThat( GraphAlgoBenchCase.pairsFor( "power-law-400000-seed1" ), is( GraphAlgoBenchCase.PAIRS / 4 ) );
+        assertThat( GraphAlgoBenchCase.pairsFor( "grid-1000000-seed1" ), is( GraphAlgoBenchCase.MIN_PAIRS ) );
+    }
+
+    @Test
+    public void shouldNotEstimateAnythingOffTheGrid() throws Exception
+    {
+        assertSame( GraphAlgoBenchCase.NO_ESTIMATE, GraphAlgoBenchCase.estimateFor( "CINEASTS" ) );
+        assertSame( GraphAlgoBenchCase.NO_ESTIMATE, GraphAlgoBenchCase.estimateFor( "power-law-1000-seed1" ) );
+    }
+}
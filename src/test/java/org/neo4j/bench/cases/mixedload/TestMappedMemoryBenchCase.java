@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Map;
+
+import org.junit.Test;
+import org.neo4j.kernel.impl.util.FileUtils;
+
+public class TestMappedMemoryBenchCase
+{
+
+    @Test
+    public void shouldSplitMappedMemoryOverStoreFilesBySize() throws Exception
+    {
+        // Given
+        File store = File.createTempFile( "perftest", "mapped" );
+        store.delete();
+        store.mkdir();
+        try
+        {
+            setLength( new File( store, "neostore.nodestore.db" ), 1024 * 1024 );
+            setLength( new File( store, "neostore.relationshipstore.db" ), 4 * 1024 * 1024 );
+
+            // When
+            Map<String, String> config = MappedMemoryBenchCase.mappedMemory( store, 0.5 );
+
+            // Then
+            assertThat( config.get( "neostore.nodestore.db.mapped_memory" ), is( "512k" ) );
+            assertThat( config.get( "neostore.relationshipstore.db.mapped_memory" ), is( "2048k" ) );
+            // Files that aren't there still get the smallest possible window
+            assertThat( config.get( "neostore.propertystore.db.arrays.mapped_memory" ), is( "1k" ) );
+            assertThat( config.size(), is( MappedMemoryBenchCase.MAPPED_STORE_FILES.length ) );
+        }
+        finally
+        {
+            FileUtils.deleteRecursively( store );
+        }
+    }
+
+    private static void setLength( File file, long length ) throws Exception
+    {
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.setLength( length );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+}
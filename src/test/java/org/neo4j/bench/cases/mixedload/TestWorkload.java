@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestWorkload
+{
+
+    @Test
+    public void defaultWorkloadShouldKeepTheOriginalMix() throws Exception
+    {
+        // When
+        Workload workload = Workload.defaultWorkload();
+
+        // Then
+        assertThat( workload.getName(), is( Workload.DEFAULT_NAME ) );
+        assertThat( workload.getPopulate().size(), is( 2 ) );
+        assertThat( workload.getPhases().size(), is( 2 ) );
+
+        Workload.Phase concurrent = workload.getPhases().get( 0 );
+        assertThat( concurrent.isBulk(), is( false ) );
+        assertThat( concurrent.pick( 0.5 ).getType(), is( OperationType.SAMPLE_READ ) );
+        assertThat( concurrent.pick( 0.7 ).getType(), is( OperationType.DELETE ) );
+        assertThat( concurrent.pick( 0.8 ).getType(), is( OperationType.PROPERTY_ADD ) );
+        assertThat( concurrent.pick( 0.9 ).getType(), is( OperationType.CREATE ) );
+        assertThat( workload.durationMillis( concurrent, 60000 ), is( 40000l ) );
+
+        Workload.Phase bulk = workload.getPhases().get( 1 );
+        assertThat( bulk.isBulk(), is( true ) );
+        assertThat( bulk.getClients(), is( 2 ) );
+        assertThat( bulk.pick( 0.3 ).getOpsPerTask(), is( 7000 ) );
+        assertThat( bulk.pick( 0.5 ).getType(), is( OperationType.BULK_READ ) );
+    }
+
+    @Test
+    public void shouldApplyDefaultsForOmittedFields() throws Exception
+    {
+        // When
+        Workload workload = Workload.parse( "{ \"name\" : \"reads\", \"phases\" : [ { \"name\" : \"only\", "
+                                            + "\"operations\" : [ { \"type\" : \"SAMPLE_READ\" } ] } ] }" );
+
+        // Then
+        Workload.Operation operation = workload.getPhases().get( 0 ).pick( 0.99 );
+        assertThat( operation.getType(), is( OperationType.SAMPLE_READ ) );
+        assertThat( operation.getOpsPerTask(), is( 1 ) );
+        assertThat( operation.useIndex(), is( false ) );
+        assertThat( workload.getPopulate().isEmpty(), is( true ) );
+        assertThat( workload.durationMillis( workload.getPhases().get( 0 ), 60000 ), is( 60000l ) );
+    }
+
+    @Test
+    public void steadyPhasesShouldLeaveOutBulkPhasesUnlessThereIsNothingElse() throws Exception
+    {
+        // Given
+        Workload mixed = Workload.defaultWorkload();
+        Workload bulkOnly = Workload.parse( "{ \"name\" : \"bulk\", \"phases\" : [ { \"name\" : \"only\", "
+                                            + "\"operations\" : [ { \"type\" : \"BULK_READ\" } ] } ] }" );
+
+        // When
+        List<Workload.Phase> steady = mixed.steadyPhases();
+
+        // Then
+        assertThat( steady.size(), is( 1 ) );
+        assertThat( steady.get( 0 ).getName(), is( "concurrent" ) );
+        assertThat( Workload.durationMillis( steady.get( 0 ), steady, 60000 ), is( 60000l ) );
+        assertThat( bulkOnly.steadyPhases().size(), is( 1 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldRejectPhaseWithoutOperations() throws Exception
+    {
+        Workload.parse( "{ \"name\" : \"empty\", \"phases\" : [ { \"name\" : \"nothing\" } ] }" );
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.mixedload.trace;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+public class TestTraceRecorder
+{
+    private File traceFile = new File( "target/test/trace/operations.trace" );
+
+    @Test
+    public void shouldReadBackRecordedBatches() throws Exception
+    {
+        // Given
+        TraceRecorder recorder = TraceRecorder.open( traceFile );
+        TraceBatch create = recorder.begin();
+        create.add( TraceEntry.createNode( 12 ) );
+        create.add( TraceEntry.createRelationship( 12, 7, "TYPE_GENERIC" ) );
+        create.add( TraceEntry.setNodeProperty( 12, "name", new String[] { "a", "", "b" }, true ) );
+        recorder.record( "Create node tx", create );
+
+        TraceBatch read = recorder.begin();
+        read.add( TraceEntry.readNodeProperties( 7, false ) );
+        recorder.record( "Read node properties", read );
+        recorder.close();
+
+        // When
+        TraceReader reader = new TraceReader( traceFile );
+        TraceBatch first = reader.next();
+        TraceBatch second = reader.next();
+        TraceBatch end = reader.next();
+        reader.close();
+
+        // Then
+        assertThat( first.getOperation(), is( "Create node tx" ) );
+        assertThat( first.isWrite(), is( true ) );
+        assertThat( first.getEntries().size(), is( 3 ) );
+        assertThat( first.getEntries().get( 1 ).getOtherNodeId(), is( 7l ) );
+        assertThat( first.getEntries().get( 1 ).getKey(), is( "TYPE_GENERIC" ) );
+        TraceEntry property = first.getEntries().get( 2 );
+        assertThat( property.getKind(), is( TraceEntry.Kind.SET_NODE_PROPERTY ) );
+        assertArrayEquals( new String[] { "a", "", "b" }, (String[]) property.getValue() );
+        assertThat( property.useIndex(), is( true ) );
+
+        assertThat( second.getOperation(), is( "Read node properties" ) );
+        assertThat( second.isWrite(), is( false ) );
+        assertThat( second.getEntries().get( 0 ).getNodeId(), is( 7l ) );
+        assertTrue( second.getOffsetNanos() >= first.getOffsetNanos() );
+
+        assertNull( end );
+    }
+
+    @Test
+    public void shouldNotCollectEntriesWhenNotRecording() throws Exception
+    {
+        // When
+        TraceBatch batch = TraceRecorder.NONE.begin();
+        batch.add( TraceEntry.createNode( 1 ) );
+        TraceRecorder.NONE.record( "Create node tx", batch );
+
+        // Then
+        assertThat( batch.getEntries().isEmpty(), is( true ) );
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.cases.scan;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestParallelScanBenchCase
+{
+
+    @Test
+    public void shouldGiveEveryThreadManyRanges() throws Exception
+    {
+        // Given about the number of nodes in Cineasts
+        long highestNodeId = 63000;
+
+        for ( int threads = 1; threads <= 64; threads *= 2 )
+        {
+            // When
+            long rangeSize = ParallelScanBenchCase.rangeSize( highestNodeId, threads );
+
+            // Then
+            long ranges = ( highestNodeId + rangeSize ) / rangeSize;
+            assertTrue( threads + " threads got " + ranges + " ranges",
+                    ranges >= (long) threads * ParallelScanBenchCase.RANGES_PER_THREAD );
+        }
+    }
+
+    @Test
+    public void shouldNeverHandOutEmptyRanges() throws Exception
+    {
+        assertThat( ParallelScanBenchCase.rangeSize( 0, 8 ), is( 1l ) );
+        assertThat( ParallelScanBenchCase.rangeSize( 100, 64 ), is( 1l ) );
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.generator;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.neo4j.graphdb.RelationshipType;
+
+public class TestGraphGenerator
+{
+
+    @Test
+    public void shouldGenerateAboutAsManyRelationshipsAsAskedFor() throws Exception
+    {
+        for ( GraphGenerator generator : GraphGenerator.values() )
+        {
+            // When
+            CountingOutput out = generate( generator, 10000, 1 );
+
+            // Then
+            assertTrue( generator + " generated " + out.relationships,
+                    out.relationships >= 9000 && out.relationships <= 11000 );
+        }
+    }
+
+    @Test
+    public void shouldOnlyConnectNodesThatHaveBeenCreated() throws Exception
+    {
+        for ( GraphGenerator generator : GraphGenerator.values() )
+        {
+            // When
+            CountingOutput out = generate( generator, 10000, 1 );
+
+            // Then
+            assertThat( generator + " connected a node to itself", out.selfLoops, is( 0l ) );
+            assertThat( generator + " connected unknown nodes", out.unknownNodes, is( 0l ) );
+        }
+    }
+
+    @Test
+    public void shouldGenerateTheSameGraphFromTheSameSeed() throws Exception
+    {
+        for ( GraphGenerator generator : GraphGenerator.values() )
+        {
+            assertThat( generator.toString(), generate( generator, 10000, 42 ).hash,
+                    is( generate( generator, 10000, 42 ).hash ) );
+        }
+        assertFalse( generate( GraphGenerator.POWER_LAW, 10000, 42 ).hash ==
+                     generate( GraphGenerator.POWER_LAW, 10000, 43 ).hash );
+    }
+
+    @Test
+    public void powerLawGraphShouldHaveHubs() throws Exception
+    {
+        // When
+        CountingOutput out = generate( GraphGenerator.POWER_LAW, 100000, 1 );
+
+        // Then the most known node is known by far more than the average node
+        assertTrue( "Most known node has " + out.maxInDegree() + " relationships",
+                out.maxInDegree() > 100 * GraphGenerator.FRIENDS );
+    }
+
+    private static CountingOutput generate( GraphGenerator generator, long relationships, long seed )
+    {
+        CountingOutput out = new CountingOutput();
+        generator.generate( out, relationships, new Random( seed ) );
+        return out;
+    }
+
+    private static class CountingOutput implements GraphGenerator.Output
+    {
+        long nodes;
+        long relationships;
+        long selfLoops;
+        long unknownNodes;
+        long hash = 17;
+        int[] inDegree = new int[1024];
+
+        @Override
+        public void node( long node )
+        {
+            assertThat( node, is( nodes ) );
+            nodes++;
+        }
+
+        @Override
+        public void relationship( long from, long to, RelationshipType type )
+        {
+            relationships++;
+            if ( from == to )
+            {
+                selfLoops++;
+            }
+            if ( from < 0 || to < 0 || from >= nodes || to >= nodes )
+            {
+                unknownNodes++;
+            }
+            hash = hash * 31 + from;
+            hash = hash * 31 + to;
+            if ( to >= inDegree.length )
+            {
+                int[] grown = new int[(int) Math.max( to + 1, inDegree.length * 2 )];
+                System.arraycopy( inDegree, 0, grown, 0, inDegree.length );
+                inDegree = grown;
+            }
+            inDegree[(int) to]++;
+        }
+
+        int maxInDegree()
+        {
+            int max = 0;
+            for ( int degree : inDegree )
+            {
+                max = Math.max( max, degree );
+            }
+            return max;
+        }
+    }
+}
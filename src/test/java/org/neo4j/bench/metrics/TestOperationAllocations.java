@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.RunResult;
+
+public class TestOperationAllocations
+{
+
+    @Test
+    public void shouldAverageBytesPerOperationTypeAcrossMergedInstances() throws Exception
+    {
+        // Given
+        OperationAllocations first = new OperationAllocations();
+        first.recordBytes( "Create node tx", 1000, 1 );
+        first.recordBytes( "Read node properties", 64, 1 );
+
+        OperationAllocations second = new OperationAllocations();
+        second.recordBytes( "Create node tx", 3000, 1 );
+
+        // When
+        OperationAllocations merged = new OperationAllocations();
+        merged.add( first );
+        merged.add( second );
+
+        // Then
+        assertEquals( 2000.0, merged.bytesPerOperation( "Create node tx" ), 0.0 );
+        assertEquals( 64.0, merged.bytesPerOperation( "Read node properties" ), 0.0 );
+    }
+
+    @Test
+    public void shouldTrackAllocationMetricsForRegression() throws Exception
+    {
+        // Given
+        OperationAllocations allocations = new OperationAllocations();
+        allocations.recordBytes( "Read relationships", 4096, 2 );
+
+        // When
+        RunResult result = new RunResult( "1.0", new Date(), "http://build/1" );
+        result.addResult( new CaseResult( "Case", allocations.toMetrics().toArray( new CaseResult.Metric[0] ) ) );
+
+        // Then
+        CaseResult.Metric metric = result.getMetric( "Case", "Read relationships allocation" );
+        assertThat( metric.shouldTrackRegression(), is( true ) );
+        assertEquals( 2048.0, metric.getValue(), 0.0 );
+    }
+
+    @Test
+    public void shouldMeasureWhatTheCurrentThreadAllocates() throws Exception
+    {
+        assumeTrue( OperationAllocations.threadAllocatedBytes() >= 0 );
+
+        // Given
+        OperationAllocations allocations = new OperationAllocations();
+        long startBytes = OperationAllocations.threadAllocatedBytes();
+
+        // When
+        byte[] garbage = new byte[1024 * 1024];
+        allocations.record( "Allocate", startBytes );
+
+        // Then
+        assertTrue( garbage.length > 0 );
+        assertTrue( allocations.bytesPerOperation( "Allocate" ) >= 1024 * 1024 );
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.neo4j.bench.domain.CaseResult;
+import org.neo4j.bench.domain.RunResult;
+
+public class TestOperationLatencies
+{
+
+    @Test
+    public void shouldMergeHistogramsPerOperationType() throws Exception
+    {
+        // Given
+        OperationLatencies first = new OperationLatencies();
+        first.recordNanos( "Create node tx", TimeUnit.MILLISECONDS.toNanos( 1 ) );
+        first.recordNanos( "Read node properties", TimeUnit.MICROSECONDS.toNanos( 10 ) );
+
+        OperationLatencies second = new OperationLatencies();
+        second.recordNanos( "Create node tx", TimeUnit.MILLISECONDS.toNanos( 3 ) );
+
+        // When
+        OperationLatencies merged = new OperationLatencies();
+        merged.add( first );
+        merged.add( second );
+
+        // Then
+        assertThat( merged.getHistograms().size(), is( 2 ) );
+        assertThat( merged.getHistograms().get( "Create node tx" ).getTotalCount(), is( 2l ) );
+        assertThat( merged.getHistograms().get( "Read node properties" ).getTotalCount(), is( 1l ) );
+    }
+
+    @Test
+    public void shouldExposePercentilesAsMetricsAndTrackP99() throws Exception
+    {
+        // Given
+        OperationLatencies latencies = new OperationLatencies();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            latencies.recordNanos( "Create node tx", TimeUnit.MICROSECONDS.toNanos( i ) );
+        }
+
+        // When
+        RunResult result = new RunResult( "1.0", new Date(), "http://build/1" );
+        result.addResult( new CaseResult( "Case", latencies.toMetrics().toArray( new CaseResult.Metric[0] ) ) );
+
+        // Then
+        CaseResult.Metric p99 = result.getMetric( "Case", "Create node tx latency p99" );
+        assertThat( p99.shouldTrackRegression(), is( true ) );
+        assertEquals( 990.0, p99.getValue(), 1.0 );
+
+        CaseResult.Metric max = result.getMetric( "Case", "Create node tx latency max" );
+        assertThat( max.shouldTrackRegression(), is( false ) );
+        assertEquals( 1000.0, max.getValue(), 1.0 );
+    }
+
+    @Test
+    public void shouldClampValuesOutsideTheTrackableRange() throws Exception
+    {
+        // Given
+        OperationLatencies latencies = new OperationLatencies();
+
+        // When
+        latencies.recordNanos( "Slow", TimeUnit.DAYS.toNanos( 1 ) );
+        latencies.recordNanos( "Slow", -1 );
+
+        // Then
+        assertThat( latencies.getHistograms().get( "Slow" ).getTotalCount(), is( 2l ) );
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestThroughputSeries
+{
+
+    @Test
+    public void shouldMergeWhatWorkersCompleted() throws Exception
+    {
+        // Given
+        long start = System.currentTimeMillis();
+        ThroughputSeries first = new ThroughputSeries();
+        first.update( 10, 2 );
+        first.update( 15, 2 );
+
+        ThroughputSeries second = new ThroughputSeries();
+        second.update( 5, 1 );
+
+        // When
+        ThroughputSeries merged = new ThroughputSeries();
+        merged.add( first );
+        merged.add( second );
+
+        // Then
+        long end = System.currentTimeMillis() + 2 * ThroughputSeries.WINDOW_MILLIS;
+        assertThat( sum( merged.getReads( start - 2 * ThroughputSeries.WINDOW_MILLIS, end ) ), is( 20l ) );
+        assertThat( sum( merged.getWrites( start - 2 * ThroughputSeries.WINDOW_MILLIS, end ) ), is( 3l ) );
+    }
+
+    @Test
+    public void shouldLeaveOutPartialWindows() throws Exception
+    {
+        // When
+        long[] windows = new ThroughputSeries().getReads( 1500, 4500 );
+
+        // Then
+        assertThat( windows.length, is( 2 ) );
+    }
+
+    @Test
+    public void shouldPickLowPercentileAndMax() throws Exception
+    {
+        // Given
+        long[] windows = new long[] { 50, 10, 40, 20, 30 };
+
+        // Then
+        assertThat( ThroughputSeries.percentile( windows, 5.0 ), is( 10l ) );
+        assertThat( ThroughputSeries.percentile( windows, 50.0 ), is( 30l ) );
+        assertThat( ThroughputSeries.max( windows ), is( 50l ) );
+        assertThat( ThroughputSeries.percentile( new long[0], 5.0 ), is( 0l ) );
+    }
+
+    private static long sum( long[] windows )
+    {
+        long sum = 0;
+        for ( long window : windows )
+        {
+            sum += window;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestUniversalScalabilityLaw
+{
+
+    @Test
+    public void shouldRecoverCoefficientsFromExactData() throws Exception
+    {
+        // Given
+        UniversalScalabilityLaw actual = new UniversalScalabilityLaw( 1000, 0.05, 0.002 );
+        int[] concurrency = { 1, 2, 4, 8, 16, 32 };
+        double[] throughput = new double[concurrency.length];
+        for ( int i = 0; i < concurrency.length; i++ )
+        {
+            throughput[i] = actual.throughputAt( concurrency[i] );
+        }
+
+        // When
+        UniversalScalabilityLaw fitted = UniversalScalabilityLaw.fit( concurrency, throughput );
+
+        // Then
+        assertEquals( 1000, fitted.getLambda(), 1e-9 );
+        assertEquals( 0.05, fitted.getSigma(), 1e-9 );
+        assertEquals( 0.002, fitted.getKappa(), 1e-9 );
+        assertEquals( Math.sqrt( 0.95 / 0.002 ), fitted.peakConcurrency(), 1e-6 );
+    }
+
+    @Test
+    public void shouldFitLinearScalingAsNoContention() throws Exception
+    {
+        // When
+        UniversalScalabilityLaw fitted = UniversalScalabilityLaw.fit(
+                new int[] { 1, 2, 4, 8 }, new double[] { 100, 200, 400, 800 } );
+
+        // Then
+        assertEquals( 0, fitted.getSigma(), 1e-9 );
+        assertEquals( 0, fitted.getKappa(), 1e-9 );
+    }
+
+    @Test
+    public void shouldPutEverythingOnContentionWithTwoLevels() throws Exception
+    {
+        // When
+        UniversalScalabilityLaw fitted = UniversalScalabilityLaw.fit(
+                new int[] { 1, 2 }, new double[] { 100, 150 } );
+
+        // Then
+        assertEquals( 1.0 / 3, fitted.getSigma(), 1e-9 );
+        assertEquals( 0, fitted.getKappa(), 1e-9 );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldRequireSingleClientThroughput() throws Exception
+    {
+        UniversalScalabilityLaw.fit( new int[] { 2, 4 }, new double[] { 100, 150 } );
+    }
+}
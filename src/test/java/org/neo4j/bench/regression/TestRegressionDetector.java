@@ -157,6 +157,25 @@ public class TestRegressionDetector
         assertThat( "no regression should have been detected", report.regressionDetected(), is( false ) );
     }
 
+    @Test
+    public void shouldListJvmMetricsNextToRegressedCase() throws Exception
+    {
+        // Given
+        RegressionDetector detector = new RegressionDetector(0.1, VersionFilter.GA_ONLY );
+
+        RunResult oldResult = runResult("1.0", new Date( 337, 0, 1 ), "http://build/1", 10.0, BIGGER_IS_BETTER);
+        oldResult.getCase( "Perftest 1" ).addMetric( new CaseResult.Metric( "JVM: GC time", 120.0, unit, SMALLER_IS_BETTER ) );
+        RunResult newResult = runResult("1.1", new Date( 337, 0, 1 ), "http://build/2", 1.0, BIGGER_IS_BETTER);
+        newResult.getCase( "Perftest 1" ).addMetric( new CaseResult.Metric( "JVM: GC time", 980.0, unit, SMALLER_IS_BETTER ) );
+
+        // When
+        RegressionReport report = detector.detectRegression( new RunResultSet( oldResult ), newResult );
+
+        // Then
+        assertThat(report.toString(), containsString(
+                "  JVM metrics, version 1.0 vs now:\n" +
+                "    GC time: 120.0000 -> 980.0000\n" ) );
+    }
 
     private RunResult runResult( String version, Date date, String buildUrl, double value, CaseResult.MetricComparer
             metricComparer )
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.util;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class TestNodeIdPool
+{
+
+    @Test
+    public void shouldBeEmptyWhenNothingHasBeenAdded() throws Exception
+    {
+        // Given
+        NodeIdPool pool = NodeIdPool.onHeap();
+
+        // Then
+        assertThat( pool.size(), is( 0 ) );
+        assertThat( pool.randomId( new Random() ), is( NodeIdPool.NO_ID ) );
+        assertThat( pool.removeRandomId( new Random() ), is( NodeIdPool.NO_ID ) );
+    }
+
+    @Test
+    public void shouldSampleWithoutRemoving() throws Exception
+    {
+        // Given
+        NodeIdPool pool = NodeIdPool.onHeap();
+        pool.add( 0 );
+        pool.add( 42 );
+
+        // When
+        Set<Long> sampled = new HashSet<Long>();
+        Random random = new Random( 1337 );
+        for ( int i = 0; i < 100; i++ )
+        {
+            sampled.add( pool.randomId( random ) );
+        }
+
+        // Then
+        assertThat( pool.size(), is( 2 ) );
+        assertThat( sampled.size(), is( 2 ) );
+        assertTrue( sampled.contains( 0l ) );
+        assertTrue( sampled.contains( 42l ) );
+    }
+
+    @Test
+    public void shouldReuseSlotsOfRemovedIds() throws Exception
+    {
+        // Given
+        NodeIdPool pool = NodeIdPool.onHeap();
+        Random random = new Random( 1337 );
+        for ( long id = 0; id < 1000; id++ )
+        {
+            pool.add( id );
+        }
+
+        // When
+        Set<Long> removed = new HashSet<Long>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            removed.add( pool.removeRandomId( random ) );
+        }
+        for ( long id = 1000; id < 1500; id++ )
+        {
+            pool.add( id );
+        }
+
+        // Then
+        assertThat( removed.size(), is( 500 ) );
+        assertThat( pool.size(), is( 1000 ) );
+        assertThat( drain( pool ).size(), is( 1000 ) );
+    }
+
+    @Test
+    public void shouldNeverHandOutTheSameIdTwiceUnderConcurrentUse() throws Exception
+    {
+        for ( final NodeIdPool pool : new NodeIdPool[] { NodeIdPool.onHeap(), NodeIdPool.offHeap() } )
+        {
+            // Given
+            final int threads = 8;
+            final int idsPerThread = 50000;
+            final ConcurrentHashMap<Long, Boolean> removed = new ConcurrentHashMap<Long, Boolean>();
+            ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+            // When
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                final int thread = t;
+                futures.add( executor.submit( new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        Random random = new Random( thread );
+                        for ( int i = 0; i < idsPerThread; i++ )
+                        {
+                            pool.add( (long) thread * idsPerThread + i );
+                            if ( random.nextBoolean() )
+                            {
+                                long id = pool.removeRandomId( random );
+                                assertNull( "Removed twice: " + id, removed.put( id, true ) );
+                            }
+                            pool.randomId( random );
+                        }
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<Void> future : futures )
+            {
+                future.get();
+            }
+            executor.shutdown();
+
+            // Then
+            Set<Long> remaining = drain( pool );
+            for ( Long id : remaining )
+            {
+                assertFalse( removed.containsKey( id ) );
+            }
+            assertThat( removed.size() + remaining.size(), is( threads * idsPerThread ) );
+            pool.close();
+        }
+    }
+
+    private Set<Long> drain( NodeIdPool pool )
+    {
+        Set<Long> ids = new HashSet<Long>();
+        Random random = new Random( 1337 );
+        long id;
+        while ( ( id = pool.removeRandomId( random ) ) != NodeIdPool.NO_ID )
+        {
+            assertTrue( "Got twice: " + id, ids.add( id ) );
+        }
+        return ids;
+    }
+}